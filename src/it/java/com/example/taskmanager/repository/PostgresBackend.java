@@ -0,0 +1,23 @@
+package com.example.taskmanager.repository;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Запускает тест-срез {@code @DataJpaTest} на встроенном PostgreSQL с профилем {@code postgres}
+ * вместо H2. Схему создает Flyway теми же миграциями, что и в работе.
+ * Тесты с этой аннотацией лежат в src/it/java и запускаются профилем Maven {@code postgres-it}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("postgres")
+@ContextConfiguration(initializers = EmbeddedPostgresInitializer.class)
+public @interface PostgresBackend {
+}
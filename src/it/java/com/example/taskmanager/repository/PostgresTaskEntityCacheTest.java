@@ -0,0 +1,12 @@
+package com.example.taskmanager.repository;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Тесты {@link TaskEntityCacheTest} на PostgreSQL: пакетная загрузка задач там строится иначе, чем на H2.
+ * Профиль postgres отключает кэш, здесь он включен явно — в тесте работает один узел.
+ */
+@PostgresBackend
+@TestPropertySource(properties = "app.entity-cache.enabled=true")
+class PostgresTaskEntityCacheTest extends TaskEntityCacheTest {
+}
@@ -0,0 +1,8 @@
+package com.example.taskmanager.repository;
+
+/**
+ * Тесты {@link TaskRepositoryTest} на PostgreSQL: запросы должны вести себя так же, как на H2.
+ */
+@PostgresBackend
+class PostgresTaskRepositoryTest extends TaskRepositoryTest {
+}
@@ -0,0 +1,191 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.TaskManagerApplication;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Поднимает приложение без веб-сервера поверх отдельной in-memory базы H2
+ * и заполняет её задачами для бенчмарков.
+ * <p>
+ * Данные генерируются из фиксированного зерна, поэтому при одинаковом числе задач
+ * каждый прогон работает с одними и теми же заголовками, статусами и сроками.
+ */
+final class BenchmarkContext {
+
+    static final long SEED = 20240101L;
+    private static final LocalDate BASE_DATE = LocalDate.of(2024, 1, 1);
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Запускает контекст приложения с собственной in-memory базой.
+     *
+     * @return Запущенный контекст
+     */
+    static ConfigurableApplicationContext start() {
+        return start(WebApplicationType.NONE);
+    }
+
+    /**
+     * Запускает контекст приложения с собственной in-memory базой.
+     *
+     * @param webType Тип приложения; для {@link WebApplicationType#SERVLET} Tomcat слушает случайный порт
+     * @param args    Дополнительные аргументы в формате {@code --property=value}
+     * @return Запущенный контекст
+     */
+    static ConfigurableApplicationContext start(WebApplicationType webType, String... args) {
+        if (webType == WebApplicationType.NONE) {
+            // Сервисы вызываются из рабочих потоков JMH, поэтому контекст безопасности общий.
+            // Веб-приложению он не нужен: пользователь определяется по сессии запроса.
+            SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        }
+        // Аргументы командной строки, а не properties(): те имеют низший приоритет
+        // и перекрываются значениями из application.properties
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--server.port=0",
+                // Нагрузочные бенчмарки сами создают поток запросов, который лимиты бы отклоняли
+                "--app.rate-limit.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.taskmanager=WARN"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(TaskManagerApplication.class)
+                .web(webType)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Запускает веб-приложение с настройками профиля как есть: без подмены базы, логирования
+     * и вывода SQL. Отключаются только лимиты запросов. База — файловая H2 в заданном каталоге.
+     *
+     * @param profile Spring-профиль ({@code default} — без дополнительных профилей)
+     * @param dataDir Каталог файлов базы
+     * @return Запущенный контекст; Tomcat слушает случайный порт
+     */
+    static ConfigurableApplicationContext startProfile(String profile, Path dataDir) {
+        return new SpringApplicationBuilder(TaskManagerApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--spring.profiles.active=" + profile,
+                        "--app.data-dir=" + dataDir.toAbsolutePath(),
+                        "--app.rate-limit.enabled=false",
+                        "--server.port=0");
+    }
+
+    /**
+     * @param context Контекст веб-приложения
+     * @return Адрес запущенного Tomcat
+     */
+    static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    /**
+     * Задает пользователю пароль и входит через форму.
+     *
+     * @param context  Контекст веб-приложения
+     * @param user     Пользователь
+     * @param password Открытый пароль
+     * @return HTTP-клиент с cookie сессии
+     */
+    static HttpClient login(ConfigurableApplicationContext context, User user, String password)
+            throws IOException, InterruptedException {
+        user.setPassword(context.getBean(PasswordEncoder.class).encode(password));
+        context.getBean(UserRepository.class).save(user);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .cookieHandler(new CookieManager())
+                .build();
+        String form = "username=" + URLEncoder.encode(user.getUsername(), StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl(context) + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.headers().firstValue("Location").orElse("").contains("error")) {
+            throw new IllegalStateException("Benchmark user could not log in");
+        }
+        return client;
+    }
+
+    /**
+     * Создает пользователя с заданным числом задач и делает его текущим.
+     *
+     * @param context Контекст приложения
+     * @param tasks   Количество задач
+     * @return Пользователь-владелец задач
+     */
+    static User seedUser(ConfigurableApplicationContext context, int tasks) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        TaskRepository taskRepository = context.getBean(TaskRepository.class);
+
+        User user = new User();
+        user.setUsername("bench-" + UUID.randomUUID());
+        user.setPassword("{noop}bench");
+        user = userRepository.save(user);
+
+        List<Task> batch = new ArrayList<>(tasks);
+        for (Task task : generateTasks(tasks)) {
+            task.setUser(user);
+            batch.add(task);
+        }
+        taskRepository.saveAll(batch);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, List.of()));
+        return user;
+    }
+
+    /**
+     * Генерирует задачи из фиксированного зерна, не сохраняя их.
+     *
+     * @param tasks Количество задач
+     * @return Список задач с заполненными полями, кроме id и владельца
+     */
+    static List<Task> generateTasks(int tasks) {
+        Random random = new Random(SEED);
+        TaskStatus[] statuses = TaskStatus.values();
+        List<Task> result = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            Task task = new Task("Task " + i,
+                    "Description " + Long.toHexString(random.nextLong()),
+                    statuses[random.nextInt(statuses.length)]);
+            // Примерно у пятой части задач срока нет
+            if (random.nextInt(5) != 0) {
+                task.setDueDate(BASE_DATE.plusDays(random.nextInt(365)));
+            }
+            task.setOrderIndex(i);
+            result.add(task);
+        }
+        return result;
+    }
+}
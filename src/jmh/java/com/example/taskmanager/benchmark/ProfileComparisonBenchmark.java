@@ -0,0 +1,128 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает профиль по умолчанию с профилем {@code prod}: время запуска приложения
+ * и установившуюся пропускную способность HTTP API.
+ * <p>
+ * В отличие от остальных бенчмарков приложение запускается с настройками профиля
+ * как есть — файловая H2, вывод SQL и уровни логирования не подменяются, ведь именно
+ * они и отличают профили. В профиле по умолчанию каждый запрос печатает SQL в stdout,
+ * поэтому вывод JMH лучше перенаправить в файл.
+ * <p>
+ * {@code startup} измеряет холодный запуск: в каждом из форков приложение поднимается
+ * один раз в новой JVM над пустой базой, включая миграции Flyway.
+ */
+public class ProfileComparisonBenchmark {
+
+    private static final String PASSWORD = "bench";
+    private static final int TASKS = 100;
+
+    @State(Scope.Benchmark)
+    public static class Startup {
+
+        @Param({"default", "prod"})
+        private String profile;
+
+        private Path dataDir;
+        private ConfigurableApplicationContext context;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            dataDir = Files.createTempDirectory("taskdb-startup");
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            if (context != null) {
+                context.close();
+            }
+            FileSystemUtils.deleteRecursively(dataDir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Running {
+
+        @Param({"default", "prod"})
+        private String profile;
+
+        private Path dataDir;
+        private ConfigurableApplicationContext context;
+        private HttpClient client;
+        private HttpRequest listRequest;
+        private HttpRequest createRequest;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, InterruptedException {
+            dataDir = Files.createTempDirectory("taskdb-throughput");
+            context = BenchmarkContext.startProfile(profile, dataDir);
+            User user = BenchmarkContext.seedUser(context, TASKS);
+            client = BenchmarkContext.login(context, user, PASSWORD);
+            String tasksUrl = BenchmarkContext.baseUrl(context) + "/api/tasks";
+            listRequest = HttpRequest.newBuilder(URI.create(tasksUrl)).GET().build();
+            createRequest = HttpRequest.newBuilder(URI.create(tasksUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Benchmark task\"}"))
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            context.close();
+            FileSystemUtils.deleteRecursively(dataDir);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(5)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public ConfigurableApplicationContext startup(Startup state) {
+        state.context = BenchmarkContext.startProfile(state.profile, state.dataDir);
+        return state.context;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Fork(1)
+    @Warmup(iterations = 5, time = 10)
+    @Measurement(iterations = 5, time = 10)
+    public byte[] listTasks(Running state) throws IOException, InterruptedException {
+        return send(state.client, state.listRequest);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Fork(1)
+    @Warmup(iterations = 5, time = 10)
+    @Measurement(iterations = 5, time = 10)
+    public byte[] createTask(Running state) throws IOException, InterruptedException {
+        return send(state.client, state.createRequest);
+    }
+
+    private static byte[] send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочное сравнение обработки запросов на платформенных и виртуальных потоках.
+ * <p>
+ * Каждый поток JMH изображает одного пользователя, который без пауз запрашивает
+ * {@code GET /api/tasks} у запущенного Tomcat. Число пользователей задается флагом JMH
+ * {@code -t}, режим — параметром {@code threads}; в результатах режима
+ * {@link Mode#SampleTime} есть перцентили, в том числе p0.99:
+ * <pre>
+ * mvn -Pjava21,benchmark verify -DskipTests -Djmh.benchmarks=TaskHttpLoadBenchmark \
+ *     -Djmh.args="-t 400" -Djmh.result=target/load-400.json
+ * </pre>
+ * Режим {@code virtual} требует Java 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class TaskHttpLoadBenchmark {
+
+    private static final String PASSWORD = "bench";
+    private static final int TASKS = 100;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest listRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21; build with -Pjava21");
+        }
+        context = BenchmarkContext.start(WebApplicationType.SERVLET,
+                "--spring.threads.virtual.enabled=" + virtual);
+        User user = BenchmarkContext.seedUser(context, TASKS);
+        client = BenchmarkContext.login(context, user, PASSWORD);
+        listRequest = HttpRequest.newBuilder(URI.create(BenchmarkContext.baseUrl(context) + "/api/tasks"))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] listTasks() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(listRequest, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает выдачу списка задач сущностями и проекцией {@code TaskView}: чтение из базы
+ * в read-only транзакции и сериализация в JSON, как в {@code GET /api/tasks} без кэша списков.
+ * <p>
+ * Смысл бенчмарка — в выделении памяти, поэтому запускать его стоит с профилировщиком:
+ * {@code -Djmh.benchmarks=TaskListAllocationBenchmark -Djmh.args="-prof gc"}.
+ * {@code gc.alloc.rate.norm}, деленный на число задач, дает байты на одну задачу списка.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskListAllocationBenchmark {
+
+    @Param({"100", "10000"})
+    private int tasks;
+
+    private ConfigurableApplicationContext context;
+    private TaskRepository taskRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private ObjectWriter writer;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        taskRepository = context.getBean(TaskRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        writer = context.getBean(ObjectMapper.class).writerFor(List.class);
+        User user = BenchmarkContext.seedUser(context, tasks);
+        userId = user.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Прежний путь: сущности в контексте персистентности и в кэше второго уровня.
+     */
+    @Benchmark
+    public byte[] entities() {
+        return readOnly.execute(status -> serialize(entityManager
+                .createQuery("select t from Task t where t.user.id = :userId order by t.orderIndex, t.id", Task.class)
+                .setParameter("userId", userId)
+                .getResultList()));
+    }
+
+    @Benchmark
+    public byte[] views() {
+        return readOnly.execute(status -> serialize(taskRepository.findViewsByUserId(userId)));
+    }
+
+    private byte[] serialize(List<?> list) {
+        try {
+            return writer.writeValueAsBytes(list);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет чтение полного списка задач пользователя {@link TaskService#getAllTasks()}
+ * в зависимости от размера списка.
+ * <p>
+ * Кэш списков задач ({@code TaskListCache}) и кэш второго уровня отключены: иначе после первого
+ * вызова измерялось бы только попадание в кэш, а не запрос к базе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskQueryBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int tasks;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(WebApplicationType.NONE, "--app.entity-cache.enabled=false");
+        taskService = context.getBean(TaskService.class);
+        BenchmarkContext.seedUser(context, tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TaskView> getAllTasks() {
+        return taskService.getAllTasks();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает прежний построчный reorder (findById + save на каждую задачу)
+ * с пакетным обновлением {@link TaskService#updateTaskOrder(List)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskReorderBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int tasks;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private TaskRepository taskRepository;
+    private List<Long> ascending;
+    private List<Long> descending;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        taskService = context.getBean(TaskService.class);
+        taskRepository = context.getBean(TaskRepository.class);
+        User user = BenchmarkContext.seedUser(context, tasks);
+
+        ascending = taskRepository.findOrderedIds(user);
+        descending = new ArrayList<>(ascending);
+        Collections.reverse(descending);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Каждый вызов чередует порядок, чтобы все строки действительно менялись.
+     */
+    private List<Long> nextOrder() {
+        flip = !flip;
+        return flip ? descending : ascending;
+    }
+
+    @Benchmark
+    public void perRowLoop() {
+        List<Long> taskIds = nextOrder();
+        for (int i = 0; i < taskIds.size(); i++) {
+            Optional<Task> taskOpt = taskRepository.findById(taskIds.get(i));
+            if (taskOpt.isPresent()) {
+                Task task = taskOpt.get();
+                task.setOrderIndex(i);
+                taskRepository.save(task);
+            }
+        }
+    }
+
+    @Benchmark
+    public void batchUpdate() {
+        taskService.updateTaskOrder(nextOrder());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.dto.TaskSearchDocument;
+import com.example.taskmanager.service.TaskSearchService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет задержку полнотекстового поиска {@link TaskSearchService#search} на индексе
+ * из миллиона задач. Режим SampleTime дает распределение задержек, включая p99.
+ * <p>
+ * Индекс строится напрямую, без базы: тексты генерируются из фиксированного зерна
+ * по небольшому словарю русских слов в разных формах.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class TaskSearchBenchmark {
+
+    private static final int TOTAL_TASKS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final String[] WORDS = {
+            "отчет", "отчета", "отчеты", "задача", "задачи", "задачу", "проект", "проекта", "проекты",
+            "клиент", "клиента", "клиенту", "встреча", "встречи", "договор", "договора", "счет", "счета",
+            "подготовить", "проверить", "отправить", "согласовать", "позвонить", "обсудить", "купить",
+            "квартальный", "годовой", "срочный", "новый", "продажи", "продаж", "бюджет", "бюджета",
+            "презентация", "презентацию", "релиз", "релиза", "ошибка", "ошибки", "тесты", "дизайн"
+    };
+
+    /**
+     * Число задач у пользователя, по которому выполняется поиск; остальные задачи
+     * индекса принадлежат другим пользователям и отсекаются фильтром.
+     */
+    @Param({"1000", "100000"})
+    private int tasksPerUser;
+
+    @Param({"отчет", "подгот", "проект клиента"})
+    private String query;
+
+    private TaskSearchService searchService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        searchService = new TaskSearchService(null, "", BATCH_SIZE, Duration.ofSeconds(1));
+        Random random = new Random(BenchmarkContext.SEED);
+        List<TaskSearchDocument> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= TOTAL_TASKS; id++) {
+            batch.add(new TaskSearchDocument(id, (id - 1) / tasksPerUser + 1,
+                    words(random, 3), words(random, 8)));
+            if (batch.size() == BATCH_SIZE) {
+                searchService.index(batch);
+                batch.clear();
+            }
+        }
+        searchService.index(batch);
+        searchService.refresh();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        searchService.close();
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return searchService.search(1L, query, 20);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет сериализацию списка задач в JSON тем же {@link ObjectMapper},
+ * которым пользуется {@code TaskController}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskSerializationBenchmark {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Param({"100", "10000", "100000"})
+    private int tasks;
+
+    private List<TaskView> list;
+    private ObjectWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConfigurableApplicationContext context = BenchmarkContext.start();
+        try {
+            writer = context.getBean(ObjectMapper.class).writerFor(List.class);
+        } finally {
+            context.close();
+        }
+        List<Task> generated = BenchmarkContext.generateTasks(tasks);
+        long id = 1;
+        for (Task task : generated) {
+            task.setId(id++);
+            task.setCreatedAt(CREATED_AT);
+        }
+        list = generated.stream().map(TaskView::from).toList();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(list);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.Task;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Сравнивает форматы ответа {@code GET /api/tasks} на списке из 10 000 задач:
+ * JSON, CBOR и Smile, без сжатия и с gzip, как их отдает Tomcat при {@code server.compression.enabled}.
+ * <p>
+ * Время операции — это процессорная стоимость сериализации (и сжатия) одного ответа.
+ * Размер ответа попадает в результаты JMH вторичными метриками {@code serialize:wireBytes}
+ * и {@code serialize:responses}: JMH суммирует их по итерациям, поэтому размер одного
+ * ответа в байтах — их частное.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskWireFormatBenchmark {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Param({"10000"})
+    private int tasks;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private List<TaskView> list;
+    private ObjectWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ConfigurableApplicationContext context = BenchmarkContext.start();
+        try {
+            // Те же преобразователи, что выбирает Spring MVC по заголовку Accept
+            ObjectMapper mapper = switch (format) {
+                case "cbor" -> context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+                case "smile" -> context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+                default -> context.getBean(ObjectMapper.class);
+            };
+            writer = mapper.writerFor(List.class);
+        } finally {
+            context.close();
+        }
+        List<Task> generated = BenchmarkContext.generateTasks(tasks);
+        long id = 1;
+        for (Task task : generated) {
+            task.setId(id++);
+            task.setCreatedAt(CREATED_AT);
+        }
+        list = generated.stream().map(TaskView::from).toList();
+    }
+
+    @Benchmark
+    public byte[] serialize(WireSize wireSize) throws IOException {
+        byte[] body = gzip ? compress() : writer.writeValueAsBytes(list);
+        wireSize.wireBytes += body.length;
+        wireSize.responses++;
+        return body;
+    }
+
+    private byte[] compress() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream compressed = new GZIPOutputStream(bytes)) {
+            writer.writeValue(compressed, list);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Счетчики для отчета JMH: сколько байт записано и сколько ответов сериализовано за итерацию.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+
+        public long wireBytes;
+        public long responses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+            responses = 0;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.dto.TaskRequest;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет одиночные изменения задач через {@link TaskService}: создание и обновление.
+ * Пакетный {@link TaskService#updateTaskOrder(List)} измеряется в {@link TaskReorderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskWriteBenchmark {
+
+    private static final int SEEDED_TASKS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private List<Long> taskIds;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        taskService = context.getBean(TaskService.class);
+        User user = BenchmarkContext.seedUser(context, SEEDED_TASKS);
+        taskIds = context.getBean(TaskRepository.class).findOrderedIds(user);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TaskView createTask() {
+        return taskService.createTask(new TaskRequest("New task", "Created by benchmark", TaskStatus.PENDING, null, null));
+    }
+
+    /**
+     * Задачи обновляются по кругу, статус чередуется, чтобы каждое обновление меняло строку.
+     */
+    @Benchmark
+    public TaskView updateTask() {
+        int i = cursor++;
+        TaskRequest details = new TaskRequest("Updated " + i, "Updated by benchmark",
+                (i & 1) == 0 ? TaskStatus.IN_PROGRESS : TaskStatus.PENDING, null, null);
+        return taskService.updateTask(taskIds.get(i % taskIds.size()), details);
+    }
+}
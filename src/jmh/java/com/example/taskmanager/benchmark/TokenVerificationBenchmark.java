@@ -0,0 +1,55 @@
+package com.example.taskmanager.benchmark;
+
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.security.TokenClaims;
+import com.example.taskmanager.security.TokenService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет проверку токена доступа {@link TokenService#verifyAccessToken}, которая выполняется
+ * на каждом запросе в режиме без сессий. Выделение памяти на операцию видно с профилировщиком GC:
+ * {@code -Djmh.args="-prof gc"} (строка gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TokenVerificationBenchmark {
+
+    private TokenService tokenService;
+    private String token;
+    private String forgedToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] secret = new byte[32];
+        new Random(BenchmarkContext.SEED).nextBytes(secret);
+        tokenService = new TokenService(Base64.getEncoder().encodeToString(secret),
+                Duration.ofHours(1), Duration.ofDays(7), Clock.systemUTC());
+        User user = new User();
+        user.setId(12345L);
+        user.setUsername("benchmark-user");
+        user.setPassword("$2a$10$hash");
+        token = tokenService.issueAccessToken(user);
+        char last = token.charAt(token.length() - 2);
+        forgedToken = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+    }
+
+    @Benchmark
+    public TokenClaims verifyValid() {
+        return tokenService.verifyAccessToken(token);
+    }
+
+    @Benchmark
+    public TokenClaims verifyForged() {
+        return tokenService.verifyAccessToken(forgedToken);
+    }
+}
@@ -32,9 +32,7 @@ public class DataInitializer implements CommandLineRunner {
                 });
 
         // 2. Ищем задачи без пользователя (от старой версии) и отдаем их админу
-        List<Task> orphanTasks = taskRepository.findAll().stream()
-                .filter(task -> task.getUser() == null)
-                .toList();
+        List<Task> orphanTasks = taskRepository.findByUserIsNull();
 
         if (!orphanTasks.isEmpty()) {
             orphanTasks.forEach(task -> task.setUser(admin));
@@ -0,0 +1,69 @@
+package com.example.taskmanager.config;
+
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Кэш второго уровня Hibernate для задач и пользователей на Caffeine (JCache).
+ * Регионы создаются здесь с ограничением размера и времени жизни из свойств
+ * {@code app.entity-cache.*}; Hibernate не создает недостающие регионы сам, а падает при запуске.
+ * Попадания и промахи по регионам публикуются в метрике {@code hibernate.second.level.cache.requests}.
+ * <p>
+ * Кэш локален для узла и не узнает об изменениях, сделанных другими экземплярами приложения,
+ * поэтому при общей базе его нужно отключать: {@code app.entity-cache.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.entity-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class EntityCacheConfig {
+
+    /**
+     * Отдельный провайдер на каждый контекст: менеджеры кэшей провайдера по умолчанию
+     * общие для всей JVM, и в тестах контексты делили бы одни и те же регионы.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(
+            @Value("${app.entity-cache.tasks.max-size:100000}") long maxTasks,
+            @Value("${app.entity-cache.users.max-size:10000}") long maxUsers,
+            @Value("${app.entity-cache.ttl:10m}") Duration ttl) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        cacheManager.createCache(Task.CACHE_REGION, region(maxTasks, ttl));
+        cacheManager.createCache(User.CACHE_REGION, region(maxUsers, ttl));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCache(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+        };
+    }
+
+    /**
+     * Hibernate кладет в кэш разобранное состояние сущности, которое не меняется после записи,
+     * поэтому значения хранятся по ссылке, без копирования при каждом чтении.
+     */
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.taskmanager.config;
+
+import com.example.taskmanager.metrics.QueryCountFilter;
+import com.example.taskmanager.metrics.QueryCountInspector;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Подсчет SQL-запросов на каждый HTTP-запрос.
+ * Остальные метрики (HTTP, Hikari, Hibernate, репозитории, методы сервисов с {@code @Timed})
+ * настраивает Spring Boot Actuator по свойствам из application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspector() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+
+    /**
+     * Фильтр стоит первым, чтобы в счет попали и запросы, выполненные при аутентификации.
+     */
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(MeterRegistry meterRegistry,
+            @Value("${app.metrics.max-queries-per-request:20}") int maxQueries) {
+        FilterRegistrationBean<QueryCountFilter> registration =
+                new FilterRegistrationBean<>(new QueryCountFilter(meterRegistry, maxQueries));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
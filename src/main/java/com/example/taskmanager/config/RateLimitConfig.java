@@ -0,0 +1,106 @@
+package com.example.taskmanager.config;
+
+import com.example.taskmanager.ratelimit.ConcurrencyLimitFilter;
+import com.example.taskmanager.ratelimit.RateLimitFilter;
+import com.example.taskmanager.ratelimit.RateLimitProperties;
+import com.example.taskmanager.ratelimit.TokenBucketLimiter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Ограничение частоты запросов и число одновременных запросов ({@code app.rate-limit.*}).
+ * <p>
+ * Порядок фильтров: правила по адресу и общий лимит одновременных запросов стоят
+ * перед цепочкой Spring Security, правила по пользователю — сразу после неё.
+ * Отказы считаются в метрике {@code http.server.requests.rejected}.
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    private static final int SECURITY_ORDER = SecurityProperties.DEFAULT_FILTER_ORDER;
+
+    /**
+     * Размер пула Hikari по умолчанию, если источник данных не Hikari.
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * Запросы, которым нужно соединение с базой: API задач, кроме потока событий.
+     * Поток событий после подключения соединения не держит и ограничен своими настройками.
+     */
+    private static final RequestMatcher DATABASE_REQUESTS = new AndRequestMatcher(
+            new AntPathRequestMatcher("/api/**"),
+            new NegatedRequestMatcher(new AntPathRequestMatcher("/api/tasks/stream")));
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> ipRateLimitFilter(RateLimitProperties properties, Clock clock,
+            MeterRegistry meterRegistry) {
+        return register(new RateLimitFilter(limits(properties, RateLimitProperties.Key.IP), clock, meterRegistry),
+                SECURITY_ORDER - 2);
+    }
+
+    /**
+     * Без явного значения лимит вдвое больше пула соединений: часть запросов обслуживается
+     * из кэшей и соединение не занимает, а остальные ждут его недолго. Размер пула берется
+     * из самого {@link HikariDataSource}, а не из свойства, которое могло быть не задано.
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(RateLimitProperties properties,
+            DataSource dataSource, MeterRegistry meterRegistry) {
+        int maxConcurrentRequests = properties.maxConcurrentRequests() > 0
+                ? properties.maxConcurrentRequests()
+                : 2 * poolSize(dataSource);
+        return register(new ConcurrencyLimitFilter(maxConcurrentRequests, DATABASE_REQUESTS, meterRegistry),
+                SECURITY_ORDER - 1);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> principalRateLimitFilter(RateLimitProperties properties,
+            Clock clock, MeterRegistry meterRegistry) {
+        return register(new RateLimitFilter(limits(properties, RateLimitProperties.Key.PRINCIPAL), clock,
+                meterRegistry), SECURITY_ORDER + 1);
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        return dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+    }
+
+    private static <T extends Filter> FilterRegistrationBean<T> register(T filter, int order) {
+        FilterRegistrationBean<T> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(order);
+        return registration;
+    }
+
+    private static List<RateLimitFilter.Limit> limits(RateLimitProperties properties, RateLimitProperties.Key key) {
+        return properties.rules().entrySet().stream()
+                .filter(entry -> entry.getValue().key() == key)
+                .map(entry -> limit(entry.getKey(), entry.getValue(), properties.maxBuckets()))
+                .toList();
+    }
+
+    private static RateLimitFilter.Limit limit(String name, RateLimitProperties.Rule rule, long maxBuckets) {
+        List<RequestMatcher> matchers = rule.paths().stream()
+                .map(path -> (RequestMatcher) new AntPathRequestMatcher(path, rule.method()))
+                .toList();
+        return new RateLimitFilter.Limit(name, new OrRequestMatcher(matchers), rule.key(),
+                new TokenBucketLimiter(rule.capacity(), rule.period(), maxBuckets));
+    }
+}
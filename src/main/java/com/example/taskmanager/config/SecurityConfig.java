@@ -1,36 +1,141 @@
 package com.example.taskmanager.config;
 
+import com.example.taskmanager.exception.PasswordHashingBusyException;
+import com.example.taskmanager.security.BoundedPasswordEncoder;
+import com.example.taskmanager.security.CachingAuthenticationProvider;
+import com.example.taskmanager.security.SharedUserCache;
+import com.example.taskmanager.security.TieredUserCache;
+import com.example.taskmanager.security.VerifiedCredentialCache;
+import com.example.taskmanager.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+        /**
+         * Кодировщик паролей BCrypt, работающий в отдельном ограниченном пуле,
+         * чтобы хеширование при входе и регистрации не занимало потоки Tomcat.
+         * Без реестра метрик (например, в тестовых срезах) метрики пишутся в локальный реестр.
+         */
+        @Bean
+        public PasswordEncoder passwordEncoder(@Value("${app.password.bcrypt-strength:10}") int strength,
+                        @Value("${app.password.hash-threads:0}") int threads,
+                        @Value("${app.password.queue-capacity:32}") int queueCapacity,
+                        @Value("${app.password.timeout:5s}") Duration timeout,
+                        ObjectProvider<MeterRegistry> meterRegistry) {
+                // По умолчанию хешированию отдается половина ядер, остальное остается запросам
+                int hashThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+                return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), strength, hashThreads,
+                                queueCapacity, timeout, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+        }
+
+        /**
+         * Кэш пользователей для входа через форму и HTTP Basic: память узла и,
+         * если объявлен бин {@link SharedUserCache}, общий для узлов уровень.
+         */
+        @Bean
+        public TieredUserCache userCache(@Value("${app.auth.user-cache.enabled:true}") boolean enabled,
+                        @Value("${app.auth.user-cache.max-size:10000}") long maxSize,
+                        @Value("${app.auth.user-cache.ttl:1m}") Duration ttl,
+                        ObjectProvider<SharedUserCache> sharedUserCache) {
+                return new TieredUserCache(enabled, maxSize, ttl, sharedUserCache.getIfAvailable());
+        }
+
         @Bean
-        public PasswordEncoder passwordEncoder() {
-                return new BCryptPasswordEncoder();
+        public VerifiedCredentialCache verifiedCredentialCache(
+                        @Value("${app.auth.user-cache.enabled:true}") boolean enabled,
+                        @Value("${app.auth.credential-cache.max-size:10000}") long maxSize,
+                        @Value("${app.auth.credential-cache.ttl:1m}") Duration ttl) {
+                return new VerifiedCredentialCache(enabled, maxSize, ttl);
         }
 
+        /**
+         * Провайдер входа по паролю с обоими кэшами. Объявлен явно, поэтому Spring Security
+         * не создает свой {@link DaoAuthenticationProvider} без кэшей.
+         */
         @Bean
-        public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        public DaoAuthenticationProvider authenticationProvider(UserService userService,
+                        PasswordEncoder passwordEncoder, TieredUserCache userCache,
+                        VerifiedCredentialCache verifiedCredentialCache) {
+                DaoAuthenticationProvider provider = new CachingAuthenticationProvider(passwordEncoder,
+                                verifiedCredentialCache);
+                provider.setUserDetailsService(userService);
+                provider.setUserDetailsPasswordService(userService);
+                provider.setUserCache(userCache);
+                return provider;
+        }
+
+        /**
+         * При перегрузке пула хеширования отвечает 503, остальные ошибки входа
+         * возвращают на страницу входа.
+         */
+        private static AuthenticationFailureHandler loginFailureHandler() {
+                AuthenticationFailureHandler redirect = new SimpleUrlAuthenticationFailureHandler("/login.html?error");
+                return (request, response, exception) -> {
+                        if (exception instanceof PasswordHashingBusyException) {
+                                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getMessage());
+                                return;
+                        }
+                        redirect.onAuthenticationFailure(request, response, exception);
+                };
+        }
+
+        /**
+         * @param managementPort Отдельный порт actuator ({@code management.server.port}); -1, если его нет
+         */
+        @Bean
+        public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                        @Value("${management.server.port:-1}") int managementPort) throws Exception {
                 http
                                 .csrf(csrf -> csrf.disable()) // Упрощаем для начала
                                 .authorizeHttpRequests(auth -> auth
                                                 .requestMatchers("/css/**", "/js/**", "/auth/**", "/h2-console/**",
                                                                 "/register.html", "/login.html")
                                                 .permitAll()
+                                                // Проверки живости ходят без входа
+                                                .requestMatchers("/actuator/health").permitAll()
+                                                // Сборщик метрик — без входа только на внутреннем порту actuator;
+                                                // на порту приложения метрики требуют входа
+                                                .requestMatchers(request -> managementPort > 0
+                                                                && request.getLocalPort() == managementPort
+                                                                && request.getRequestURI().equals("/actuator/prometheus"))
+                                                .permitAll()
+                                                // Ответы sendError (401 для HTTP Basic, 503 при перегрузке)
+                                                // рендерятся через /error и не должны превращаться в редирект
+                                                .requestMatchers("/error").permitAll()
                                                 .anyRequest().authenticated())
                                 .formLogin(form -> form
                                                 .loginPage("/login.html") // Мы создадим эту страницу
                                                 .loginProcessingUrl("/login") // Spring Security обработает POST сюда
                                                 .defaultSuccessUrl("/", true)
+                                                .failureHandler(loginFailureHandler())
                                                 .permitAll())
+                                // Для клиентов API, присылающих логин и пароль в каждом запросе.
+                                // Запросы без заголовка Authorization по-прежнему уходят на страницу входа.
+                                .httpBasic(Customizer.withDefaults())
+                                .exceptionHandling(exceptions -> exceptions
+                                                .authenticationEntryPoint(new LoginUrlAuthenticationEntryPoint("/login.html")))
                                 .logout(logout -> logout
                                                 .permitAll())
                                 .headers(headers -> headers.frameOptions().disable()); // Для H2 консоли
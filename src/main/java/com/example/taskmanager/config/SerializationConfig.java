@@ -0,0 +1,33 @@
+package com.example.taskmanager.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Двоичные форматы ответов API: CBOR ({@code application/cbor}) и Smile
+ * ({@code application/x-jackson-smile}), выбираемые по заголовку Accept. Без него,
+ * как и раньше, отдается JSON.
+ * <p>
+ * Преобразователи Spring MVC по умолчанию строят собственный {@code ObjectMapper} и записывали бы
+ * даты массивами чисел. Здесь они собираются тем же построителем, что и JSON, поэтому
+ * структура ответа во всех форматах одинакова. Smile к тому же не повторяет имена полей:
+ * начиная со второй задачи списка они передаются ссылками на уже переданные.
+ */
+@Configuration
+public class SerializationConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.taskmanager.config;
+
+import com.example.taskmanager.security.TokenAuthenticationFilter;
+import com.example.taskmanager.security.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Режим аутентификации без сессий ({@code app.auth.tokens.enabled=true}).
+ * <p>
+ * Запросы с заголовком {@code Authorization: Bearer} и выдача токенов обрабатываются отдельной
+ * цепочкой фильтров, которая не создает и не читает HTTP-сессий: пользователь, его ID и роль
+ * берутся из подписанного токена. Такие запросы может обслужить любой узел с тем же секретом,
+ * без привязки клиента к узлу. Запросы без токена (веб-интерфейс) по-прежнему проходят через
+ * цепочку с формой входа из {@link SecurityConfig}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.auth.tokens.enabled", havingValue = "true")
+public class TokenSecurityConfig {
+
+        @Bean
+        public TokenService tokenService(@Value("${app.auth.tokens.secret:}") String secret,
+                        @Value("${app.auth.tokens.access-ttl:15m}") Duration accessTtl,
+                        @Value("${app.auth.tokens.refresh-ttl:7d}") Duration refreshTtl,
+                        Clock clock) {
+                return new TokenService(secret, accessTtl, refreshTtl, clock);
+        }
+
+        @Bean
+        @Order(1)
+        public SecurityFilterChain tokenSecurityFilterChain(HttpSecurity http, TokenService tokenService)
+                        throws Exception {
+                AntPathRequestMatcher login = new AntPathRequestMatcher("/auth/login", HttpMethod.POST.name());
+                AntPathRequestMatcher refresh = new AntPathRequestMatcher("/auth/refresh", HttpMethod.POST.name());
+                http
+                                .securityMatcher(new OrRequestMatcher(TokenAuthenticationFilter::hasBearerToken,
+                                                login, refresh))
+                                .csrf(csrf -> csrf.disable())
+                                .sessionManagement(session -> session
+                                                .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                                .requestCache(cache -> cache.disable())
+                                .authorizeHttpRequests(auth -> auth
+                                                .requestMatchers(login, refresh).permitAll()
+                                                .anyRequest().authenticated())
+                                .addFilterBefore(new TokenAuthenticationFilter(tokenService),
+                                                UsernamePasswordAuthenticationFilter.class)
+                                .exceptionHandling(exceptions -> exceptions
+                                                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+
+                return http.build();
+        }
+}
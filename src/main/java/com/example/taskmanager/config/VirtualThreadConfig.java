@@ -0,0 +1,71 @@
+package com.example.taskmanager.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройки режима виртуальных потоков ({@code spring.threads.virtual.enabled=true}).
+ * <p>
+ * В этом режиме Tomcat обрабатывает каждый запрос в отдельном виртуальном потоке,
+ * поэтому вызовы {@code TaskService} и JDBC выполняются там же. Встроенный H2 выполняет
+ * запросы внутри {@code synchronized}-блоков сессии, и на это время виртуальный поток
+ * закрепляется (pinning) за своим несущим потоком. Если соединений в пуле больше, чем
+ * несущих потоков, лишние соединения не дают параллелизма, а лишь позволяют занять все
+ * несущие потоки работой с базой. Поэтому размер пула Hikari ограничивается их числом.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
+    /**
+     * Ограничивает пул соединений числом несущих потоков виртуального планировщика.
+     *
+     * @return Постпроцессор, настраивающий {@link HikariDataSource}
+     */
+    @Bean
+    public static BeanPostProcessor hikariPinningGuard() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    if (Runtime.version().feature() < VIRTUAL_THREADS_JAVA_VERSION) {
+                        log.warn("spring.threads.virtual.enabled is set, but Java {} has no virtual threads; "
+                                + "build and run with the java21 profile", Runtime.version().feature());
+                        return bean;
+                    }
+                    int carriers = carrierParallelism();
+                    if (dataSource.getMaximumPoolSize() > carriers) {
+                        log.info("Limiting Hikari pool from {} to {} connections to match virtual thread carriers",
+                                dataSource.getMaximumPoolSize(), carriers);
+                        dataSource.setMaximumPoolSize(carriers);
+                        dataSource.setMinimumIdle(Math.min(dataSource.getMinimumIdle(), carriers));
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Возвращает число несущих потоков так же, как его вычисляет JDK:
+     * системное свойство {@code jdk.virtualThreadScheduler.parallelism} или число процессоров.
+     */
+    static int carrierParallelism() {
+        String configured = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+        if (configured != null) {
+            try {
+                return Math.max(1, Integer.parseInt(configured.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid jdk.virtualThreadScheduler.parallelism value '{}'", configured);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+}
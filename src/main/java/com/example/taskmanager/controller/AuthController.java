@@ -1,5 +1,6 @@
 package com.example.taskmanager.controller;
 
+import com.example.taskmanager.exception.PasswordHashingBusyException;
 import com.example.taskmanager.model.User;
 import com.example.taskmanager.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -23,13 +24,15 @@ public class AuthController {
      * Регистрирует нового пользователя.
      *
      * @param user Данные пользователя (username, password)
-     * @return 200 OK при успехе или 400 Bad Request при ошибке
+     * @return 200 OK при успехе, 400 Bad Request при ошибке или 503, если пул хеширования перегружен
      */
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody User user) {
         try {
             userService.registerUser(user);
             return ResponseEntity.ok().build();
+        } catch (PasswordHashingBusyException e) {
+            throw e; // 503 из GlobalExceptionHandler
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
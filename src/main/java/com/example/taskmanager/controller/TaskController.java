@@ -1,21 +1,49 @@
 package com.example.taskmanager.controller;
 
-import com.example.taskmanager.model.Task;
+import com.example.taskmanager.dto.BulkImportResult;
+import com.example.taskmanager.dto.TaskChanges;
+import com.example.taskmanager.dto.TaskFileFormat;
+import com.example.taskmanager.dto.TaskMoveRequest;
+import com.example.taskmanager.dto.TaskPage;
+import com.example.taskmanager.dto.TaskRequest;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.dto.TaskStatusRequest;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.TaskSortKey;
+import com.example.taskmanager.model.TaskStatus;
 import com.example.taskmanager.service.TaskService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
  * REST контроллер для управления задачами.
  * Предоставляет API для создания, чтения, обновления и удаления задач.
  * Все эндпоинты защищены и работают в контексте текущего пользователя.
+ * <p>
+ * Ответы отдаются в JSON, а по заголовку Accept — в CBOR или Smile
+ * (см. {@link com.example.taskmanager.config.SerializationConfig}).
  */
 @RestController
 @RequestMapping("/api/tasks")
 public class TaskController {
 
+    /**
+     * Браузер хранит ответ, но перед каждым использованием проверяет его по ETag.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final TaskService taskService;
 
     public TaskController(TaskService taskService) {
@@ -24,56 +52,159 @@ public class TaskController {
 
     /**
      * Получает список всех задач текущего пользователя.
+     * Ответ помечается ETag версии задач пользователя; если клиент прислал
+     * совпадающий If-None-Match, возвращается 304 без чтения базы и сериализации.
+     * Формат ответа выбирается по Accept, поэтому ответ помечается {@code Vary: Accept}.
      *
-     * @return Список задач
+     * @param request Текущий запрос
+     * @return Список задач или 304 Not Modified
      */
     @GetMapping
-    public List<Task> getAllTasks() {
-        return taskService.getAllTasks();
+    public ResponseEntity<List<TaskView>> getAllTasks(WebRequest request) {
+        String etag = etag(taskService.getTasksVersion());
+        if (request.checkNotModified(etag)) {
+            return notModified();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(taskService.getAllTasks());
+    }
+
+    /**
+     * Получает страницу задач текущего пользователя.
+     * Режим включается параметром limit; сортировка и фильтрация выполняются на сервере,
+     * переход к следующей странице — по курсору из предыдущего ответа.
+     *
+     * @param status Фильтр по статусу (необязательный)
+     * @param sort   Ключ сортировки: orderIndex, dueDate или createdAt
+     * @param cursor Курсор следующей страницы (необязательный)
+     * @param limit  Размер страницы
+     * @return Страница задач
+     */
+    @GetMapping(params = "limit")
+    public TaskPage getTasksPage(@RequestParam(required = false) TaskStatus status,
+            @RequestParam(defaultValue = "orderIndex") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit) {
+        return taskService.getTasksPage(status, TaskSortKey.fromParam(sort), cursor, limit);
+    }
+
+    /**
+     * Получает статистику задач текущего пользователя для панели на главной странице.
+     *
+     * @return Количество задач по статусам, просроченные задачи и доля завершенных
+     */
+    @GetMapping("/stats")
+    public TaskStats getStats() {
+        return taskService.getStats();
+    }
+
+    /**
+     * Ищет задачи текущего пользователя по словам из заголовка и описания.
+     * Учитываются русские словоформы; последнее слово может быть неполным.
+     *
+     * @param q     Текст запроса
+     * @param limit Максимальное количество результатов (не более 100)
+     * @return Найденные задачи в порядке убывания релевантности
+     */
+    @GetMapping("/search")
+    public List<TaskView> searchTasks(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        return taskService.searchTasks(q, limit);
+    }
+
+    /**
+     * Получает изменения задач текущего пользователя для синхронизации по дельте:
+     * созданные и измененные задачи и ID удаленных после номера since.
+     * Номер из ответа передается как since в следующем запросе. Если ответ помечен
+     * как snapshot, он содержит полный список задач, которым клиент заменяет свою копию.
+     *
+     * @param since Последний известный клиенту номер изменения (0 — полный список)
+     * @return Изменения и новый номер
+     */
+    @GetMapping("/changes")
+    public TaskChanges getChanges(@RequestParam(defaultValue = "0") long since) {
+        return taskService.getChanges(since);
+    }
+
+    /**
+     * Открывает поток Server-Sent Events с изменениями задач текущего пользователя.
+     * Событие {@code task} содержит тип изменения и задачу; событие {@code resync}
+     * означает, что клиент отстал и должен перечитать список задач.
+     * Если поток отключен, отвечает 204 No Content: по спецификации SSE браузер
+     * после такого ответа не переподключается.
+     *
+     * @return Поток событий
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTasks() {
+        return taskService.openStream()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
     }
 
     /**
      * Получает задачу по её ID.
+     * Как и список, помечается ETag версии задач пользователя.
      *
-     * @param id Идентификатор задачи
-     * @return 200 OK с задачей или 404 Not Found
+     * @param id      Идентификатор задачи
+     * @param request Текущий запрос
+     * @return 200 OK с задачей, 304 Not Modified или 404 Not Found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Task> getTaskById(@PathVariable Long id) {
+    public ResponseEntity<TaskView> getTaskById(@PathVariable Long id, WebRequest request) {
+        String etag = etag(taskService.getTasksVersion());
+        if (request.checkNotModified(etag)) {
+            return notModified();
+        }
         return taskService.getTaskById(id)
-                .map(ResponseEntity::ok)
+                .map(task -> ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(task))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
      * Создает новую задачу.
      *
-     * @param task Данные новой задачи
+     * @param request Данные новой задачи
      * @return Созданная задача
      */
     @PostMapping
-    public Task createTask(@jakarta.validation.Valid @RequestBody Task task) {
-        return taskService.createTask(task);
+    public TaskView createTask(@jakarta.validation.Valid @RequestBody TaskRequest request) {
+        return taskService.createTask(request);
     }
 
     /**
      * Обновляет существующую задачу.
      *
-     * @param id          Идентификатор задачи
-     * @param taskDetails Новые данные задачи
+     * @param id      Идентификатор задачи
+     * @param request Новые данные задачи
      * @return 200 OK с обновленной задачей или 404 Not Found
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Task> updateTask(@PathVariable Long id,
-            @jakarta.validation.Valid @RequestBody Task taskDetails) {
+    public ResponseEntity<TaskView> updateTask(@PathVariable Long id,
+            @jakarta.validation.Valid @RequestBody TaskRequest request) {
         try {
-            Task updatedTask = taskService.updateTask(id, taskDetails);
+            TaskView updatedTask = taskService.updateTask(id, request);
             return ResponseEntity.ok(updatedTask);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Меняет только статус задачи (переключатель статуса в списке).
+     *
+     * @param id      Идентификатор задачи
+     * @param request Новый статус
+     * @return 200 OK с задачей или 404 Not Found
+     */
+    @PutMapping("/{id}/status")
+    public ResponseEntity<TaskView> updateTaskStatus(@PathVariable Long id,
+            @jakarta.validation.Valid @RequestBody TaskStatusRequest request) {
+        try {
+            return ResponseEntity.ok(taskService.updateTaskStatus(id, request.status()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /**
      * Удаляет задачу.
      *
@@ -98,4 +229,69 @@ public class TaskController {
         taskService.updateTaskOrder(taskIds);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Перемещает одну задачу между соседями (для Drag & Drop).
+     * В отличие от /reorder, обычно изменяет только одну строку.
+     *
+     * @param id      Идентификатор перемещаемой задачи
+     * @param request ID соседних задач в новой позиции
+     * @return 200 OK или 404 Not Found
+     */
+    @PutMapping("/{id}/move")
+    public ResponseEntity<Void> moveTask(@PathVariable Long id, @RequestBody TaskMoveRequest request) {
+        try {
+            taskService.moveTask(id, request.previousId(), request.nextId());
+            return ResponseEntity.ok().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Массово импортирует задачи из JSON-массива или CSV (с заголовком).
+     * Тело запроса читается потоково; некорректные строки пропускаются
+     * и перечисляются в ответе.
+     *
+     * @param request HTTP-запрос с телом в формате JSON или text/csv
+     * @return Количество импортированных задач и ошибки по строкам
+     * @throws IOException если тело запроса не удалось прочитать
+     */
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, "text/csv" })
+    public BulkImportResult importTasks(HttpServletRequest request) throws IOException {
+        return taskService.importTasks(request.getInputStream(),
+                TaskFileFormat.fromContentType(request.getContentType()));
+    }
+
+    /**
+     * Выгружает все задачи текущего пользователя потоком в формате JSON или CSV.
+     *
+     * @param format Формат: json или csv
+     * @return Файл с задачами
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(@RequestParam(defaultValue = "json") String format) {
+        TaskFileFormat fileFormat = TaskFileFormat.fromParam(format);
+        return ResponseEntity.ok()
+                .contentType(fileFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("tasks." + fileFormat.getExtension()).build().toString())
+                .body(taskService.exportTasks(fileFormat));
+    }
+
+    /**
+     * ETag слабый: одна версия списка отдается в нескольких форматах и может быть сжата,
+     * а Tomcat не сжимает ответы с сильным ETag.
+     */
+    private static String etag(String version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * ETag в ответ 304 уже записан {@link WebRequest#checkNotModified(String)}.
+     */
+    private static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT).build();
+    }
 }
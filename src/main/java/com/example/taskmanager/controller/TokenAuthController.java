@@ -0,0 +1,47 @@
+package com.example.taskmanager.controller;
+
+import com.example.taskmanager.dto.LoginRequest;
+import com.example.taskmanager.dto.RefreshRequest;
+import com.example.taskmanager.dto.TokenResponse;
+import com.example.taskmanager.service.AuthTokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST контроллер выдачи токенов для клиентов API, работающих без сессий.
+ * Доступен, если включен режим {@code app.auth.tokens.enabled=true}.
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.auth.tokens.enabled", havingValue = "true")
+public class TokenAuthController {
+
+    private final AuthTokenService authTokenService;
+
+    /**
+     * Выдает токены доступа и обновления по имени и паролю.
+     *
+     * @param request Учетные данные
+     * @return Пара токенов; 401 при неверных учетных данных, 503 при перегрузке хеширования
+     */
+    @PostMapping("/login")
+    public TokenResponse login(@RequestBody LoginRequest request) {
+        return authTokenService.login(request.username(), request.password());
+    }
+
+    /**
+     * Выдает новую пару токенов по токену обновления.
+     *
+     * @param request Токен обновления
+     * @return Новая пара токенов; 401, если токен недействителен
+     */
+    @PostMapping("/refresh")
+    public TokenResponse refresh(@RequestBody RefreshRequest request) {
+        return authTokenService.refresh(request.refreshToken());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.taskmanager.dto;
+
+import java.util.List;
+
+/**
+ * Результат массового импорта задач.
+ *
+ * @param imported      Количество сохраненных задач
+ * @param failed        Количество отклоненных строк
+ * @param errors        Ошибки по строкам (список ограничен по длине)
+ */
+public record BulkImportResult(int imported, int failed, List<RowError> errors) {
+
+    /**
+     * Ошибка в одной строке импорта.
+     *
+     * @param row     Номер строки (элемента массива) начиная с 1
+     * @param message Описание ошибки
+     */
+    public record RowError(int row, String message) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.taskmanager.dto;
+
+/**
+ * Учетные данные для получения токенов.
+ *
+ * @param username Имя пользователя
+ * @param password Пароль
+ */
+public record LoginRequest(String username, String password) {
+}
@@ -0,0 +1,9 @@
+package com.example.taskmanager.dto;
+
+/**
+ * Запрос новой пары токенов.
+ *
+ * @param refreshToken Токен обновления
+ */
+public record RefreshRequest(String refreshToken) {
+}
@@ -0,0 +1,15 @@
+package com.example.taskmanager.dto;
+
+import java.util.List;
+
+/**
+ * Изменения задач пользователя после заданного номера изменения.
+ *
+ * @param sequence   Номер последнего учтенного изменения; передается как since в следующем запросе
+ * @param snapshot   true, если вместо дельты возвращен полный список задач, и клиент
+ *                   должен заменить им свою копию (например, когда нужные удаления уже компактированы)
+ * @param tasks      Созданные и измененные задачи (в режиме snapshot — все задачи)
+ * @param deletedIds ID удаленных задач
+ */
+public record TaskChanges(long sequence, boolean snapshot, List<TaskView> tasks, List<Long> deletedIds) {
+}
@@ -0,0 +1,59 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.TaskSortKey;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации: значение ключа сортировки и ID последней выданной задачи.
+ * Клиенту передается в виде непрозрачной строки (Base64 URL-safe).
+ *
+ * @param value Значение ключа сортировки (null для задач без значения)
+ * @param id    Идентификатор последней задачи на странице
+ */
+public record TaskCursor(Object value, Long id) {
+
+    private static final char SEPARATOR = '~';
+
+    /**
+     * Строит курсор, указывающий на переданную задачу.
+     *
+     * @param sortKey Ключ сортировки
+     * @param task    Последняя задача страницы
+     * @return Курсор
+     */
+    public static TaskCursor after(TaskSortKey sortKey, TaskView task) {
+        return new TaskCursor(sortKey.valueOf(task), task.id());
+    }
+
+    /**
+     * Кодирует курсор в строку для передачи клиенту.
+     *
+     * @return Непрозрачная строка курсора
+     */
+    public String encode() {
+        String raw = (value == null ? "" : value.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует курсор, полученный от клиента.
+     *
+     * @param sortKey Ключ сортировки, с которым был выдан курсор
+     * @param encoded Строка курсора
+     * @return Курсор
+     * @throws IllegalArgumentException если строка повреждена
+     */
+    public static TaskCursor decode(TaskSortKey sortKey, String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            String value = raw.substring(0, separator);
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new TaskCursor(value.isEmpty() ? null : sortKey.parse(value), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
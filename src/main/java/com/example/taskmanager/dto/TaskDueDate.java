@@ -0,0 +1,13 @@
+package com.example.taskmanager.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Срок незавершенной задачи для планировщика сроков.
+ *
+ * @param id      ID задачи
+ * @param userId  ID владельца задачи
+ * @param dueDate Срок выполнения
+ */
+public record TaskDueDate(Long id, Long userId, LocalDate dueDate) {
+}
@@ -0,0 +1,56 @@
+package com.example.taskmanager.dto;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Формат файла для массового импорта и экспорта задач.
+ */
+public enum TaskFileFormat {
+    JSON(MediaType.APPLICATION_JSON, "json"),
+    CSV(new MediaType("text", "csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    TaskFileFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Определяет формат по заголовку Content-Type (JSON по умолчанию).
+     *
+     * @param contentType Значение заголовка Content-Type
+     * @return Формат файла
+     */
+    public static TaskFileFormat fromContentType(String contentType) {
+        if (contentType != null && CSV.mediaType.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+            return CSV;
+        }
+        return JSON;
+    }
+
+    /**
+     * Определяет формат по параметру запроса (json или csv).
+     *
+     * @param value Значение параметра
+     * @return Формат файла
+     * @throws IllegalArgumentException если формат неизвестен
+     */
+    public static TaskFileFormat fromParam(String value) {
+        for (TaskFileFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown format: " + value);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.taskmanager.dto;
+
+/**
+ * Запрос на перемещение одной задачи (Drag & Drop).
+ * Задача помещается между соседями; любой из соседей может отсутствовать
+ * на краях списка.
+ *
+ * @param previousId ID задачи, которая окажется перед перемещаемой
+ * @param nextId     ID задачи, которая окажется после перемещаемой
+ */
+public record TaskMoveRequest(Long previousId, Long nextId) {
+}
@@ -0,0 +1,12 @@
+package com.example.taskmanager.dto;
+
+import java.util.List;
+
+/**
+ * Страница задач при постраничной выдаче.
+ *
+ * @param items      Задачи текущей страницы
+ * @param nextCursor Курсор следующей страницы или null, если страница последняя
+ */
+public record TaskPage(List<TaskView> items, String nextCursor) {
+}
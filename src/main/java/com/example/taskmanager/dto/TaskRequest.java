@@ -0,0 +1,20 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.TaskStatus;
+import jakarta.validation.constraints.NotBlank;
+
+import java.time.LocalDate;
+
+/**
+ * Данные задачи от клиента при создании и обновлении.
+ * Служебные поля (ID, владелец, даты изменения, номер изменения) клиент не передает.
+ *
+ * @param title       Заголовок (обязательный)
+ * @param description Описание
+ * @param status      Статус; при создании по умолчанию PENDING, при обновлении null оставляет прежний
+ * @param dueDate     Срок
+ * @param orderIndex  Индекс сортировки; учитывается только при создании (по умолчанию 0)
+ */
+public record TaskRequest(@NotBlank(message = "Title is required") String title, String description,
+        TaskStatus status, LocalDate dueDate, Integer orderIndex) {
+}
@@ -0,0 +1,12 @@
+package com.example.taskmanager.dto;
+
+/**
+ * Поля задачи, которые попадают в полнотекстовый индекс.
+ *
+ * @param id          ID задачи
+ * @param userId      ID владельца задачи
+ * @param title       Заголовок
+ * @param description Описание (может быть null)
+ */
+public record TaskSearchDocument(Long id, Long userId, String title, String description) {
+}
@@ -0,0 +1,16 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.TaskStatus;
+
+import java.util.Map;
+
+/**
+ * Статистика задач пользователя для панели на главной странице.
+ *
+ * @param total          Общее количество задач
+ * @param byStatus       Количество задач по статусам
+ * @param overdue        Количество незавершенных задач с истекшим сроком
+ * @param completionRate Доля завершенных задач (от 0 до 1)
+ */
+public record TaskStats(long total, Map<TaskStatus, Long> byStatus, long overdue, double completionRate) {
+}
@@ -0,0 +1,12 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.TaskStatus;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Запрос на смену статуса задачи без изменения остальных полей.
+ *
+ * @param status Новый статус (обязательный)
+ */
+public record TaskStatusRequest(@NotNull(message = "Status is required") TaskStatus status) {
+}
@@ -0,0 +1,41 @@
+package com.example.taskmanager.dto;
+
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Задача в ответах API.
+ * Списки читаются сразу в эту запись JPQL-проекцией ({@code select new ...}), без создания
+ * управляемых сущностей, их снимков для проверки изменений и прокси владельца.
+ *
+ * @param id          ID задачи
+ * @param title       Заголовок
+ * @param description Описание (может быть null)
+ * @param status      Статус
+ * @param dueDate     Срок (может быть null)
+ * @param orderIndex  Индекс сортировки
+ * @param createdAt   Дата и время создания
+ */
+public record TaskView(Long id, String title, String description, TaskStatus status, LocalDate dueDate,
+        Integer orderIndex, LocalDateTime createdAt) {
+
+    /**
+     * Выражение JPQL, строящее запись из задачи с псевдонимом {@code t}.
+     */
+    public static final String JPQL = "new com.example.taskmanager.dto.TaskView("
+            + "t.id, t.title, t.description, t.status, t.dueDate, t.orderIndex, t.createdAt)";
+
+    /**
+     * Строит запись из уже загруженной сущности (ответы на изменения и одиночное чтение).
+     *
+     * @param task Задача
+     * @return Запись для ответа
+     */
+    public static TaskView from(Task task) {
+        return new TaskView(task.getId(), task.getTitle(), task.getDescription(), task.getStatus(),
+                task.getDueDate(), task.getOrderIndex(), task.getCreatedAt());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.taskmanager.dto;
+
+/**
+ * Пара токенов, выдаваемая при входе и обновлении.
+ *
+ * @param accessToken  Токен доступа для заголовка {@code Authorization: Bearer}
+ * @param refreshToken Токен обновления для {@code POST /auth/refresh}
+ * @param tokenType    Тип токена ({@code Bearer})
+ * @param expiresIn    Срок действия токена доступа в секундах
+ */
+public record TokenResponse(String accessToken, String refreshToken, String tokenType, long expiresIn) {
+}
@@ -0,0 +1,26 @@
+package com.example.taskmanager.event;
+
+import java.time.LocalDate;
+
+/**
+ * Напоминание о сроке задачи, которое {@link com.example.taskmanager.service.TaskDueDateService}
+ * передает получателям {@link com.example.taskmanager.service.DueDateNotifier}.
+ *
+ * @param type    Тип напоминания
+ * @param userId  ID владельца задачи
+ * @param taskId  ID задачи
+ * @param dueDate Срок выполнения
+ */
+public record TaskDueEvent(Type type, Long userId, Long taskId, LocalDate dueDate) {
+
+    public enum Type {
+        /**
+         * До срока осталось не больше {@code app.due-dates.due-soon}.
+         */
+        DUE_SOON,
+        /**
+         * Срок прошел, а задача не завершена.
+         */
+        OVERDUE
+    }
+}
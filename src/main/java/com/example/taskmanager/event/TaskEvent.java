@@ -0,0 +1,50 @@
+package com.example.taskmanager.event;
+
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Событие изменения задач пользователя, публикуемое {@link com.example.taskmanager.service.TaskService}.
+ * Для обновлений содержит прежние статус и срок, чтобы подписчики могли
+ * поддерживать свои данные инкрементально.
+ *
+ * @param type            Тип изменения
+ * @param userId          ID владельца задачи
+ * @param taskId          ID задачи (null для операций над списком)
+ * @param previousStatus  Статус до изменения (только для UPDATED)
+ * @param previousDueDate Срок до изменения (только для UPDATED)
+ * @param task            Задача после изменения; для DELETED — удаленная задача
+ */
+public record TaskEvent(Type type, Long userId, Long taskId,
+        TaskStatus previousStatus, LocalDate previousDueDate, Task task) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        REORDERED,
+        IMPORTED
+    }
+
+    public static TaskEvent created(Task task) {
+        return new TaskEvent(Type.CREATED, task.getUser().getId(), task.getId(), null, null, task);
+    }
+
+    public static TaskEvent updated(Task task, TaskStatus previousStatus, LocalDate previousDueDate) {
+        return new TaskEvent(Type.UPDATED, task.getUser().getId(), task.getId(), previousStatus, previousDueDate, task);
+    }
+
+    public static TaskEvent deleted(Task task) {
+        return new TaskEvent(Type.DELETED, task.getUser().getId(), task.getId(), null, null, task);
+    }
+
+    public static TaskEvent reordered(Long userId) {
+        return new TaskEvent(Type.REORDERED, userId, null, null, null, null);
+    }
+
+    public static TaskEvent imported(Long userId) {
+        return new TaskEvent(Type.IMPORTED, userId, null, null, null, null);
+    }
+}
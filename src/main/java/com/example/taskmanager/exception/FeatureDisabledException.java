@@ -0,0 +1,13 @@
+package com.example.taskmanager.exception;
+
+/**
+ * Исключение, выбрасываемое при обращении к функции, отключенной в конфигурации
+ * этого развертывания (например, полнотекстового поиска при нескольких экземплярах).
+ * Отвечает 501 Not Implemented: повтор запроса не поможет.
+ */
+public class FeatureDisabledException extends RuntimeException {
+
+    public FeatureDisabledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.taskmanager.exception;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Исключение, выбрасываемое, когда пул хеширования паролей перегружен:
+ * очередь заполнена или задача не выполнена за отведенное время.
+ * Отвечает 503 Service Unavailable; клиент может повторить запрос позже.
+ * <p>
+ * Наследуется от {@link AuthenticationServiceException}, чтобы при входе
+ * Spring Security передавал его обработчику ошибок аутентификации.
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.taskmanager.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Считает SQL-запросы, выполненные при обработке одного HTTP-запроса.
+ * Количество пишется в распределение {@code http.server.requests.queries} с тегами
+ * метода и шаблона URI, а превышение порога логируется как предупреждение:
+ * так регрессии вида N+1 видны сразу, а не по росту времени ответа.
+ */
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    static final String METRIC_NAME = "http.server.requests.queries";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxQueries;
+
+    /**
+     * @param meterRegistry Реестр метрик
+     * @param maxQueries    Число запросов к базе, после которого HTTP-запрос попадает в лог
+     */
+    public QueryCountFilter(MeterRegistry meterRegistry, int maxQueries) {
+        this.meterRegistry = meterRegistry;
+        this.maxQueries = maxQueries;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCountInspector.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int queries = QueryCountInspector.end();
+            String uri = uri(request);
+            DistributionSummary.builder(METRIC_NAME)
+                    .description("SQL statements executed per HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(queries);
+            if (queries > maxQueries) {
+                log.warn("{} {} executed {} SQL statements (limit {}), possible N+1",
+                        request.getMethod(), uri, queries, maxQueries);
+            }
+        }
+    }
+
+    /**
+     * Шаблон URI контроллера вместо фактического пути, чтобы ID в пути не порождали новые серии метрик.
+     */
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.taskmanager.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL-запросы Hibernate, выполненные в текущем потоке.
+ * Счет ведется только между {@link #begin()} и {@link #end()}, то есть внутри
+ * HTTP-запроса, обернутого {@link QueryCountFilter}; в остальных потоках
+ * инспектор ничего не делает. Запросы через JdbcTemplate сюда не попадают.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    /**
+     * Начинает подсчет запросов в текущем потоке.
+     */
+    static void begin() {
+        COUNTER.set(new int[1]);
+    }
+
+    /**
+     * Завершает подсчет запросов в текущем потоке.
+     *
+     * @return Количество запросов с момента {@link #begin()}
+     */
+    static int end() {
+        int[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter == null ? 0 : counter[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+        return sql;
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.taskmanager.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
@@ -11,18 +18,40 @@ import java.time.LocalDateTime;
  * Сущность задачи.
  * Представляет собой задачу, которую пользователь может создать, редактировать
  * и отслеживать.
+ * <p>
+ * Кэшируется в кэше второго уровня Hibernate (регион {@value #CACHE_REGION}).
+ * <p>
+ * Равенство задач — по ссылке: {@code equals}/{@code hashCode} по всем полям менялись бы
+ * при каждом изменении задачи. {@code toString} не обращается к ленивой ссылке на владельца.
  */
 @Entity
-@Data
+@Getter
+@Setter
+@ToString(exclude = "user")
 @NoArgsConstructor
-@Table(name = "tasks")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Task.CACHE_REGION)
+@Table(name = "tasks", indexes = {
+        @Index(name = "idx_tasks_user_order", columnList = "user_id, order_index, id"),
+        @Index(name = "idx_tasks_user_due_date", columnList = "user_id, due_date, id"),
+        @Index(name = "idx_tasks_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_tasks_user_status_order", columnList = "user_id, status, order_index, id"),
+        @Index(name = "idx_tasks_user_status_due_date", columnList = "user_id, status, due_date, id"),
+        @Index(name = "idx_tasks_user_status_created", columnList = "user_id, status, created_at, id"),
+        @Index(name = "idx_tasks_user_change_seq", columnList = "user_id, change_seq"),
+        @Index(name = "idx_tasks_due_date", columnList = "due_date, id")
+})
 public class Task {
 
+    public static final String CACHE_REGION = "tasks";
+
     /**
      * Уникальный идентификатор задачи.
+     * Выдается из последовательности блоками по 50 (pooled-оптимизатор),
+     * что позволяет Hibernate объединять вставки в JDBC-батчи.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -54,12 +83,14 @@ public class Task {
      * Индекс сортировки для Drag & Drop.
      * Определяет порядок отображения задачи в списке.
      */
-    @Column(name = "order_index")
+    @Column(name = "order_index", nullable = false)
     private Integer orderIndex = 0;
 
     /**
      * Пользователь, которому принадлежит задача.
+     * Не сериализуется: это ленивая ссылка, и она содержит хеш пароля.
      */
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -72,6 +103,22 @@ public class Task {
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Дата и время последнего изменения задачи.
+     * Заполняется автоматически при сохранении.
+     */
+    @UpdateTimestamp
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Номер последнего изменения задачи в последовательности изменений владельца.
+     * Растет монотонно в пределах пользователя и используется для синхронизации по дельте.
+     */
+    @Column(name = "change_seq", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long changeSeq;
+
     /**
      * Конструктор для создания новой задачи.
      *
@@ -0,0 +1,71 @@
+package com.example.taskmanager.model;
+
+import com.example.taskmanager.dto.TaskView;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Ключ сортировки для постраничной выдачи задач.
+ * Каждый ключ соответствует индексируемому столбцу таблицы задач,
+ * по которому выполняется keyset-пагинация.
+ */
+public enum TaskSortKey {
+    ORDER_INDEX("orderIndex", TaskView::orderIndex, Integer::valueOf),
+    DUE_DATE("dueDate", TaskView::dueDate, LocalDate::parse),
+    CREATED_AT("createdAt", TaskView::createdAt, LocalDateTime::parse);
+
+    private final String property;
+    private final Function<TaskView, Object> extractor;
+    private final Function<String, Object> parser;
+
+    TaskSortKey(String property, Function<TaskView, Object> extractor, Function<String, Object> parser) {
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    /**
+     * Имя свойства сущности Task, по которому выполняется сортировка.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Извлекает значение ключа сортировки из задачи.
+     *
+     * @param task Задача
+     * @return Значение ключа (может быть null)
+     */
+    public Object valueOf(TaskView task) {
+        return extractor.apply(task);
+    }
+
+    /**
+     * Восстанавливает значение ключа из строкового представления курсора.
+     *
+     * @param value Строковое значение
+     * @return Значение ключа
+     */
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    /**
+     * Находит ключ сортировки по имени параметра запроса (orderIndex, dueDate, createdAt).
+     *
+     * @param value Имя параметра
+     * @return Ключ сортировки
+     * @throws IllegalArgumentException если ключ неизвестен
+     */
+    public static TaskSortKey fromParam(String value) {
+        for (TaskSortKey key : values()) {
+            if (key.property.equalsIgnoreCase(value) || key.name().equalsIgnoreCase(value)) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort key: " + value);
+    }
+}
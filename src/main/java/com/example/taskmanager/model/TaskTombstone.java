@@ -0,0 +1,49 @@
+package com.example.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись об удаленной задаче.
+ * Позволяет клиентам, синхронизирующимся по дельте, узнать об удалении;
+ * хранится до компактирования журнала изменений.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "task_tombstones", indexes = {
+        @Index(name = "idx_task_tombstones_user_change_seq", columnList = "user_id, change_seq"),
+        @Index(name = "idx_task_tombstones_deleted_at", columnList = "deleted_at")
+})
+public class TaskTombstone {
+
+    /**
+     * ID удаленной задачи. ID задач не переиспользуются, поэтому служит ключом.
+     */
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    /**
+     * ID владельца удаленной задачи.
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Номер изменения, которым задача была удалена.
+     */
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    /**
+     * Время удаления; по нему записи удаляются при компактировании.
+     */
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -3,22 +3,31 @@ package com.example.taskmanager.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Сущность пользователя системы.
  * Хранит учетные данные и роль пользователя.
+ * <p>
+ * Кэшируется в кэше второго уровня Hibernate (регион {@value #CACHE_REGION}).
  */
 @Entity
 @Table(name = "users")
 @Data
 @NoArgsConstructor
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 public class User {
 
+    public static final String CACHE_REGION = "users";
+
     /**
      * Уникальный идентификатор пользователя.
+     * Выдается из последовательности блоками по 50 (pooled-оптимизатор).
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     /**
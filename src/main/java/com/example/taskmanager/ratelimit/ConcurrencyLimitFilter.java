@@ -0,0 +1,132 @@
+package com.example.taskmanager.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничивает число одновременно обрабатываемых запросов к базе на узле.
+ * <p>
+ * Лишние запросы сразу получают 503 с {@code Retry-After}, а не встают в очередь пула
+ * соединений Hikari: там они держали бы потоки Tomcat до таймаута соединения, и узел
+ * перестал бы отвечать всем. Ограничиваются только запросы, подходящие под заданный
+ * {@link RequestMatcher}; статика, поток событий, проверки живости и метрики соединений
+ * с базой не ждут и проходят без ограничения.
+ * <p>
+ * Асинхронный запрос (например, выгрузка через {@code StreamingResponseBody}) работает с базой
+ * уже после возврата из цепочки фильтров, поэтому его разрешение освобождается только
+ * по завершении, ошибке или таймауту асинхронной обработки.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final int maxConcurrentRequests;
+    private final RequestMatcher limitedRequests;
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    /**
+     * @param maxConcurrentRequests Максимальное число одновременных запросов
+     * @param limitedRequests       Запросы, на которые распространяется лимит
+     * @param meterRegistry         Реестр метрик
+     */
+    public ConcurrencyLimitFilter(int maxConcurrentRequests, RequestMatcher limitedRequests,
+            MeterRegistry meterRegistry) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.limitedRequests = limitedRequests;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.rejected = Counter.builder(RateLimitFilter.REJECTED_METRIC)
+                .description("Requests rejected by rate and concurrency limits")
+                .tag("reason", "concurrency")
+                .tag("rule", "global")
+                .register(meterRegistry);
+        Gauge.builder("http.server.requests.concurrent", this, ConcurrencyLimitFilter::inFlight)
+                .description("Requests being processed under the concurrency limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !limitedRequests.matches(request);
+    }
+
+    /**
+     * Повторная диспетчеризация асинхронного запроса не берет второе разрешение:
+     * первое удерживается до завершения запроса.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            RateLimitFilter.reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Server is busy, try again later");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new PermitRelease());
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    private int inFlight() {
+        return maxConcurrentRequests - permits.availablePermits();
+    }
+
+    /**
+     * Возвращает разрешение один раз, чем бы ни закончилась асинхронная обработка:
+     * после ошибки или таймаута контейнер вызывает еще и {@code onComplete}.
+     */
+    private final class PermitRelease implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Повторный startAsync сбрасывает слушателей; разрешение остается за этим запросом
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
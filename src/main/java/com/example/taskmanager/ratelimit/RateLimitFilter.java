@@ -0,0 +1,110 @@
+package com.example.taskmanager.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отклоняет запросы сверх лимита правил со статусом 429 и заголовком {@code Retry-After}.
+ * <p>
+ * Фильтр регистрируется дважды: с правилами по адресу — до цепочки Spring Security,
+ * чтобы поток регистраций и входов отсекался до хеширования паролей, и с правилами
+ * по пользователю — после неё, когда пользователь уже известен.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String REJECTED_METRIC = "http.server.requests.rejected";
+
+    private final List<Limit> limits;
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param limits        Правила, проверяемые этим фильтром
+     * @param clock         Часы для пополнения ведер
+     * @param meterRegistry Реестр метрик
+     */
+    public RateLimitFilter(List<Limit> limits, Clock clock, MeterRegistry meterRegistry) {
+        this.limits = List.copyOf(limits);
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = nanos(clock.instant());
+        for (Limit limit : limits) {
+            if (!limit.matcher().matches(request)) {
+                continue;
+            }
+            long wait = limit.limiter().tryAcquire(key(limit.key(), request), now);
+            if (wait > 0) {
+                Counter.builder(REJECTED_METRIC)
+                        .description("Requests rejected by rate and concurrency limits")
+                        .tag("reason", "rate-limit")
+                        .tag("rule", limit.name())
+                        .register(meterRegistry)
+                        .increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1,
+                        "Too many requests, try again later");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Пишет ответ об отказе в формате ошибок API ({@code {"error": "..."}}).
+     */
+    static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    private static String key(RateLimitProperties.Key key, HttpServletRequest request) {
+        if (key == RateLimitProperties.Key.PRINCIPAL) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static long nanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    /**
+     * Правило с его ведрами.
+     *
+     * @param name    Имя правила (тег метрики)
+     * @param matcher Какие запросы оно ограничивает
+     * @param key     По чему считаются запросы
+     * @param limiter Ведра правила
+     */
+    public record Limit(String name, RequestMatcher matcher, RateLimitProperties.Key key, TokenBucketLimiter limiter) {
+    }
+}
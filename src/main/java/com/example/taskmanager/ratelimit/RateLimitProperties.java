@@ -0,0 +1,43 @@
+package com.example.taskmanager.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки ограничения частоты и числа одновременных запросов ({@code app.rate-limit.*}).
+ *
+ * @param maxConcurrentRequests Сколько запросов к API обрабатывается одновременно; 0 — вдвое больше пула соединений
+ * @param maxBuckets            Сколько ведер хранит каждое правило; самые давние вытесняются
+ * @param rules                 Правила по имени; запрос расходует жетоны всех подходящих правил
+ */
+@ConfigurationProperties("app.rate-limit")
+public record RateLimitProperties(int maxConcurrentRequests, long maxBuckets, Map<String, Rule> rules) {
+
+    public RateLimitProperties {
+        maxBuckets = maxBuckets > 0 ? maxBuckets : 100_000;
+        rules = rules == null ? Map.of() : rules;
+    }
+
+    /**
+     * Ведро жетонов для группы адресов: {@code capacity} запросов подряд, затем
+     * {@code capacity} запросов за каждый {@code period}.
+     *
+     * @param method   HTTP-метод или {@code null} для любого
+     * @param paths    Шаблоны путей в стиле Ant
+     * @param key      По чему считаются запросы
+     * @param capacity Емкость ведра
+     * @param period   Время полного пополнения ведра
+     */
+    public record Rule(String method, List<String> paths, Key key, long capacity, Duration period) {
+    }
+
+    public enum Key {
+        /** Адрес клиента; проверяется до аутентификации. */
+        IP,
+        /** Имя аутентифицированного пользователя, для анонимных запросов — адрес клиента. */
+        PRINCIPAL
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.taskmanager.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ведра жетонов одного правила, по ведру на ключ (пользователя или адрес).
+ * <p>
+ * Состояние ведра — одно число: момент, когда ведро снова станет полным (алгоритм GCRA).
+ * Каждый запрос сдвигает этот момент на интервал между жетонами; если он уходит в будущее
+ * дальше, чем на емкость ведра, запрос отклоняется. Обновление — один CAS без блокировок,
+ * а ведра хранятся в Caffeine, который удаляет простаивающие ведра (к этому времени они
+ * полны и неотличимы от новых) и ограничивает их число при наплыве случайных адресов.
+ */
+public class TokenBucketLimiter {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * @param capacity   Емкость ведра
+     * @param period     Время полного пополнения
+     * @param maxBuckets Максимальное число ведер
+     */
+    public TokenBucketLimiter(long capacity, Duration period, long maxBuckets) {
+        if (capacity <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate limit capacity and period must be positive");
+        }
+        this.intervalNanos = Math.max(1, period.toNanos() / capacity);
+        this.capacityNanos = intervalNanos * capacity;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(period)
+                .build();
+    }
+
+    /**
+     * Забирает жетон из ведра ключа.
+     *
+     * @param key       Ключ ведра
+     * @param nowNanos  Текущее время в наносекундах
+     * @return 0, если жетон выдан, иначе через сколько наносекунд он появится
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long wait = next - capacityNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -1,13 +1,111 @@
 package com.example.taskmanager.repository;
 
+import com.example.taskmanager.dto.TaskDueDate;
+import com.example.taskmanager.dto.TaskSearchDocument;
+import com.example.taskmanager.dto.TaskView;
 import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
 import com.example.taskmanager.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
-    List<Task> findByUser(User user);
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+
+    /**
+     * Читает задачи пользователя в порядке отображения (по индексу сортировки, затем по ID)
+     * проекцией, без создания сущностей.
+     */
+    @Query("select " + TaskView.JPQL + " from Task t where t.user.id = :userId order by t.orderIndex, t.id")
+    List<TaskView> findViewsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Читает задачи с заданными ID проекцией; порядок результата не определен.
+     */
+    @Query("select " + TaskView.JPQL + " from Task t where t.id in :ids")
+    List<TaskView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    List<Task> findByUserIsNull();
+
+    @Query("select coalesce(t.orderIndex, 0) from Task t where t.id = :id and t.user = :user")
+    Optional<Integer> findOrderIndex(@Param("id") Long id, @Param("user") User user);
+
+    @Query("select t.status as status, count(t) as total from Task t where t.user.id = :userId group by t.status")
+    List<StatusCount> countByStatus(@Param("userId") Long userId);
+
+    @Query("select t.dueDate as dueDate, count(t) as total from Task t where t.user.id = :userId"
+            + " and t.dueDate is not null and (t.status is null or t.status <> :completed) group by t.dueDate")
+    List<DueDateCount> countOpenByDueDate(@Param("userId") Long userId, @Param("completed") TaskStatus completed);
+
+    @Query("select " + TaskView.JPQL + " from Task t where t.user.id = :userId"
+            + " and t.changeSeq > :since and t.changeSeq <= :upTo order by t.changeSeq, t.id")
+    List<TaskView> findChanged(@Param("userId") Long userId, @Param("since") long since, @Param("upTo") long upTo);
+
+    /**
+     * Потоково читает задачи пользователя для экспорта.
+     * Требует открытой транзакции; прочитанные задачи нужно отсоединять от контекста.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t from Task t where t.user.id = :userId order by t.orderIndex, t.id")
+    Stream<Task> streamByUserId(@Param("userId") Long userId);
+
+    /**
+     * Читает поля полнотекстового индекса для всех задач порциями по возрастанию ID.
+     */
+    @Query("select new com.example.taskmanager.dto.TaskSearchDocument(t.id, t.user.id, t.title, t.description)"
+            + " from Task t where t.id > :afterId order by t.id")
+    List<TaskSearchDocument> findSearchDocuments(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Читает поля полнотекстового индекса для задач одного пользователя порциями по возрастанию ID.
+     */
+    @Query("select new com.example.taskmanager.dto.TaskSearchDocument(t.id, t.user.id, t.title, t.description)"
+            + " from Task t where t.user.id = :userId and t.id > :afterId order by t.id")
+    List<TaskSearchDocument> findSearchDocumentsByUserId(@Param("userId") Long userId,
+            @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Читает незавершенные задачи всех пользователей с заданным сроком порциями по возрастанию ID.
+     */
+    @Query("select new com.example.taskmanager.dto.TaskDueDate(t.id, t.user.id, t.dueDate) from Task t"
+            + " where t.dueDate = :dueDate and t.id > :afterId"
+            + " and (t.status is null or t.status <> :completed) order by t.id")
+    List<TaskDueDate> findOpenDueDates(@Param("dueDate") LocalDate dueDate, @Param("afterId") Long afterId,
+            @Param("completed") TaskStatus completed, Limit limit);
+
+    /**
+     * Читает незавершенные задачи пользователя со сроком в интервале [from, until).
+     */
+    @Query("select new com.example.taskmanager.dto.TaskDueDate(t.id, t.user.id, t.dueDate) from Task t"
+            + " where t.user.id = :userId and t.dueDate >= :from and t.dueDate < :until"
+            + " and (t.status is null or t.status <> :completed) order by t.dueDate, t.id")
+    List<TaskDueDate> findOpenDueDatesByUserId(@Param("userId") Long userId, @Param("from") LocalDate from,
+            @Param("until") LocalDate until, @Param("completed") TaskStatus completed);
+
+    interface StatusCount {
+        TaskStatus getStatus();
+
+        long getTotal();
+    }
+
+    interface DueDateCount {
+        LocalDate getDueDate();
+
+        long getTotal();
+    }
 }
@@ -0,0 +1,50 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.TaskSortKey;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+
+import java.util.List;
+
+/**
+ * Дополнительные запросы к задачам, которые не выражаются производными методами Spring Data.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Выбирает страницу задач пользователя методом keyset (seek) пагинации.
+     * Задачи упорядочены по ключу сортировки (NULL в конце), затем по ID.
+     *
+     * @param user    Владелец задач
+     * @param status  Фильтр по статусу (null — без фильтра)
+     * @param sortKey Ключ сортировки
+     * @param after   Позиция, после которой начинается страница (null — с начала)
+     * @param limit   Максимальное количество задач
+     * @return Задачи страницы (проекция, без создания сущностей)
+     */
+    List<TaskView> findPage(User user, TaskStatus status, TaskSortKey sortKey, TaskCursor after, int limit);
+
+    /**
+     * Записывает новые индексы сортировки одним JDBC-батчем.
+     * Обновляются только задачи, принадлежащие пользователю; чужие ID игнорируются.
+     * Задачи, индекс которых не изменился, не затрагиваются.
+     *
+     * @param user         Владелец задач
+     * @param taskIds      ID задач в новом порядке
+     * @param orderIndexes Индексы сортировки, соответствующие taskIds по позиции
+     * @param changeSeq    Номер изменения, который получают обновленные задачи
+     * @return Количество обновленных задач
+     */
+    int updateOrderIndexes(User user, List<Long> taskIds, List<Integer> orderIndexes, long changeSeq);
+
+    /**
+     * Возвращает ID всех задач пользователя в текущем порядке отображения
+     * (по индексу сортировки, затем по ID).
+     *
+     * @param user Владелец задач
+     * @return Упорядоченный список ID
+     */
+    List<Long> findOrderedIds(User user);
+}
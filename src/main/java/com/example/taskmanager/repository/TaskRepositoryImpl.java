@@ -0,0 +1,173 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskSortKey;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация {@link TaskRepositoryCustom} на JPQL.
+ */
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    /**
+     * Строки, чей индекс не меняется, не обновляются и не получают нового номера изменения.
+     */
+    static final String UPDATE_ORDER_SQL =
+            "UPDATE tasks SET order_index = ?, change_seq = ?, updated_at = ?"
+                    + " WHERE id = ? AND user_id = ? AND (order_index IS NULL OR order_index <> ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    TaskRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Страница собирается из двух диапазонов: сначала задачи с заполненным ключом
+     * (условие вида {@code key > :value or (key = :value and id > :id)}), затем задачи
+     * без значения ключа, упорядоченные по ID. Каждый диапазон читается по индексу
+     * (user_id, key, id) без OFFSET, поэтому стоимость страницы не зависит от её номера.
+     */
+    @Override
+    public List<TaskView> findPage(User user, TaskStatus status, TaskSortKey sortKey, TaskCursor after, int limit) {
+        List<TaskView> page = new ArrayList<>(limit);
+        boolean inNullRange = after != null && after.value() == null;
+        if (!inNullRange) {
+            page.addAll(findRange(user, status, sortKey, after, false, limit));
+        }
+        if (page.size() < limit) {
+            page.addAll(findRange(user, status, sortKey, inNullRange ? after : null, true, limit - page.size()));
+        }
+        return page;
+    }
+
+    private List<TaskView> findRange(User user, TaskStatus status, TaskSortKey sortKey, TaskCursor after,
+            boolean nullRange, int limit) {
+        String key = "t." + sortKey.getProperty();
+        StringBuilder jpql = new StringBuilder("select " + TaskView.JPQL + " from Task t where t.user = :user");
+        if (status != null) {
+            jpql.append(" and t.status = :status");
+        }
+        if (nullRange) {
+            jpql.append(" and ").append(key).append(" is null");
+            if (after != null) {
+                jpql.append(" and t.id > :afterId");
+            }
+            jpql.append(" order by t.id");
+        } else {
+            jpql.append(" and ").append(key).append(" is not null");
+            if (after != null) {
+                jpql.append(" and (").append(key).append(" > :afterValue or (")
+                        .append(key).append(" = :afterValue and t.id > :afterId))");
+            }
+            jpql.append(" order by ").append(key).append(", t.id");
+        }
+
+        TypedQuery<TaskView> query = entityManager.createQuery(jpql.toString(), TaskView.class)
+                .setParameter("user", user)
+                .setMaxResults(limit);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (after != null) {
+            query.setParameter("afterId", after.id());
+            if (!nullRange) {
+                query.setParameter("afterValue", after.value());
+            }
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Выполняется через JdbcTemplate, поэтому использует соединение текущей транзакции
+     * и не загружает сущности в контекст персистентности.
+     */
+    @Override
+    public int updateOrderIndexes(User user, List<Long> taskIds, List<Integer> orderIndexes, long changeSeq) {
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        lockCachedTasks(taskIds);
+        // Запрос идет мимо Hibernate, поэтому время изменения проставляется здесь
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_ORDER_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, orderIndexes.get(i));
+                ps.setLong(2, changeSeq);
+                ps.setTimestamp(3, updatedAt);
+                ps.setLong(4, taskIds.get(i));
+                ps.setLong(5, user.getId());
+                ps.setInt(6, orderIndexes.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return taskIds.size();
+            }
+        });
+        return countUpdated(counts);
+    }
+
+    @Override
+    public List<Long> findOrderedIds(User user) {
+        return entityManager.createQuery(
+                "select t.id from Task t where t.user = :user order by t.orderIndex, t.id", Long.class)
+                .setParameter("user", user)
+                .getResultList();
+    }
+
+    /**
+     * Пакетное обновление идет мимо Hibernate, и кэш второго уровня о нем не знает.
+     * Записи задач блокируются так же, как Hibernate блокирует их при обычном обновлении:
+     * до конца транзакции кэш не отдает и не принимает эти задачи, а после её завершения
+     * они перечитываются из базы. Загрузки, начатые до фиксации, в кэш уже не попадут.
+     */
+    private void lockCachedTasks(List<Long> taskIds) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        EntityPersister persister = factory.getMappingMetamodel().getEntityDescriptor(Task.class);
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        if (cache == null) {
+            return;
+        }
+        for (Long taskId : taskIds) {
+            Object key = cache.generateCacheKey(taskId, persister, factory, session.getTenantIdentifier());
+            SoftLock lock = cache.lockItem(session, key, null);
+            session.getActionQueue().registerProcess((success, completed) -> cache.unlockItem(completed, key, lock));
+        }
+    }
+
+    private static int countUpdated(int[] counts) {
+        int updated = 0;
+        for (int count : counts) {
+            // Драйвер может вернуть SUCCESS_NO_INFO (-2) вместо точного количества
+            updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return updated;
+    }
+}
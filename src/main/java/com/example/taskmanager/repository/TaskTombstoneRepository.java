@@ -0,0 +1,32 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.model.TaskTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, Long> {
+
+    @Query("select t.taskId from TaskTombstone t where t.userId = :userId"
+            + " and t.changeSeq > :since and t.changeSeq <= :upTo")
+    List<Long> findDeletedTaskIds(@Param("userId") Long userId, @Param("since") long since,
+            @Param("upTo") long upTo);
+
+    @Query("select t.userId as userId, max(t.changeSeq) as changeSeq from TaskTombstone t"
+            + " where t.deletedAt < :cutoff group by t.userId")
+    List<UserFloor> findFloorsDeletedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("delete from TaskTombstone t where t.deletedAt < :cutoff")
+    int deleteByDeletedAtBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    interface UserFloor {
+        Long getUserId();
+
+        long getChangeSeq();
+    }
+}
@@ -1,9 +1,49 @@
 package com.example.taskmanager.repository;
 
 import com.example.taskmanager.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    /**
+     * Пространство запросов для счетчиков изменений в таблице users.
+     * Без явного пространства Hibernate считает, что нативное обновление могло затронуть
+     * любую таблицу, и очищает весь кэш второго уровня. Счетчики не отображены ни в одну
+     * сущность, поэтому их обновление не должно сбрасывать ни задачи, ни пользователей.
+     * Несохраненные изменения сущностей (например, только что созданный пользователь)
+     * сбрасываются в базу перед обновлением явно, через {@code flushAutomatically}.
+     */
+    String CHANGE_COUNTERS_SPACE = "users_change_counters";
+
     Optional<User> findByUsername(String username);
+
+    /**
+     * Увеличивает номер изменения задач пользователя.
+     * Блокирует строку пользователя до конца транзакции, поэтому изменения одного
+     * пользователя фиксируются в порядке своих номеров.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CHANGE_COUNTERS_SPACE))
+    @Query(value = "UPDATE users SET change_seq = change_seq + 1 WHERE id = :id", nativeQuery = true)
+    int incrementChangeSeq(@Param("id") Long id);
+
+    @Query(value = "SELECT change_seq FROM users WHERE id = :id", nativeQuery = true)
+    long findChangeSeq(@Param("id") Long id);
+
+    @Query(value = "SELECT tombstone_floor FROM users WHERE id = :id", nativeQuery = true)
+    long findTombstoneFloor(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CHANGE_COUNTERS_SPACE))
+    @Query(value = "UPDATE users SET tombstone_floor = :floor WHERE id = :id AND tombstone_floor < :floor",
+            nativeQuery = true)
+    int raiseTombstoneFloor(@Param("id") Long id, @Param("floor") long floor);
 }
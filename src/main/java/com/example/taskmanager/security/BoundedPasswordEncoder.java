@@ -0,0 +1,132 @@
+package com.example.taskmanager.security;
+
+import com.example.taskmanager.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Кодировщик паролей, выполняющий BCrypt в отдельном ограниченном пуле потоков.
+ * <p>
+ * Хеширование занимает десятки миллисекунд процессора. Если выполнять его в потоках
+ * Tomcat, всплеск входов занимает их все, и остальные запросы ждут. Пул ограничивает
+ * число одновременно хешируемых паролей, а очередь — число ожидающих; при заполненной
+ * очереди запрос сразу получает {@link PasswordHashingBusyException} (503), а не
+ * накапливается. Поток запроса лишь ждет результата и не расходует процессор.
+ * <p>
+ * {@link #upgradeEncoding} сообщает о необходимости перехешировать пароль, если его
+ * стоимость отличается от настроенной: при следующем входе Spring Security сохранит
+ * новый хеш через {@link org.springframework.security.core.userdetails.UserDetailsPasswordService}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    /**
+     * @param delegate      Кодировщик, выполняющий хеширование
+     * @param strength      Стоимость BCrypt, с которой создаются новые хеши
+     * @param threads       Число потоков хеширования
+     * @param queueCapacity Сколько задач может ждать свободного потока
+     * @param timeout       Максимальное время ожидания результата, включая очередь
+     * @param registry      Реестр метрик
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity,
+            Duration timeout, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.timeout = timeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("password.hash").tag("operation", "encode")
+                .description("Time to hash a password, excluding queueing").register(registry);
+        this.matchesTimer = Timer.builder("password.hash").tag("operation", "matches")
+                .description("Time to verify a password, excluding queueing").register(registry);
+        this.rejected = Counter.builder("password.hash.rejected")
+                .description("Hashing requests rejected because the queue was full or the wait timed out")
+                .register(registry);
+        Gauge.builder("password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Hashing requests waiting for a thread").register(registry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Passwords being hashed right now").register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> encodeTimer.recordCallable(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> matchesTimer.recordCallable(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Too many password hashing requests, try again later");
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing timed out, try again later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
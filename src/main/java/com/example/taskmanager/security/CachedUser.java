@@ -0,0 +1,32 @@
+package com.example.taskmanager.security;
+
+import java.io.Serializable;
+
+/**
+ * Снимок пользователя в {@link TieredUserCache}: ровно те поля, из которых строится
+ * {@link UserPrincipal}. Кэш хранит снимки, а не сами {@link UserPrincipal}: Spring Security
+ * стирает пароль в объекте, ставшем principal после входа, и общий экземпляр испортил бы кэш.
+ *
+ * @param id       ID пользователя
+ * @param username Имя пользователя
+ * @param password Хеш пароля
+ * @param role     Роль
+ */
+public record CachedUser(Long id, String username, String password, String role) implements Serializable {
+
+    /**
+     * @param principal Пользователь, загруженный {@link org.springframework.security.core.userdetails.UserDetailsService}
+     * @return Снимок пользователя
+     */
+    public static CachedUser of(UserPrincipal principal) {
+        return new CachedUser(principal.getId(), principal.getUsername(), principal.getPassword(),
+                principal.getAuthorities().iterator().next().getAuthority());
+    }
+
+    /**
+     * @return Новый {@link UserPrincipal} с данными снимка
+     */
+    public UserPrincipal toPrincipal() {
+        return new UserPrincipal(id, username, password, role);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.taskmanager.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Провайдер входа по имени и паролю, который не проверяет BCrypt повторно для пароля,
+ * недавно сверенного с тем же хешем (см. {@link VerifiedCredentialCache}).
+ * Остальная логика, включая защиту от перебора имен по времени ответа и перехеширование
+ * устаревших паролей, — из {@link DaoAuthenticationProvider}.
+ */
+public class CachingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final VerifiedCredentialCache verifiedCredentials;
+
+    public CachingAuthenticationProvider(PasswordEncoder passwordEncoder, VerifiedCredentialCache verifiedCredentials) {
+        super(passwordEncoder);
+        this.verifiedCredentials = verifiedCredentials;
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+            UsernamePasswordAuthenticationToken authentication) {
+        Object credentials = authentication.getCredentials();
+        if (credentials != null && verifiedCredentials.isVerified(userDetails.getUsername(),
+                credentials.toString(), userDetails.getPassword())) {
+            return;
+        }
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        verifiedCredentials.remember(userDetails.getUsername(), credentials.toString(), userDetails.getPassword());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.taskmanager.security;
+
+/**
+ * Общий для всех узлов уровень {@link TieredUserCache}, например Redis или Memcached.
+ * Подключается объявлением бина этого типа; без него кэш пользователей только локальный.
+ * <p>
+ * Реализация сама ограничивает время жизни записей. Ошибки хранилища не должны мешать
+ * входу: {@link TieredUserCache} записывает их в лог и загружает пользователя из базы.
+ */
+public interface SharedUserCache {
+
+    /**
+     * @param username Имя пользователя
+     * @return Снимок пользователя или {@code null}, если его нет в кэше
+     */
+    CachedUser get(String username);
+
+    /**
+     * @param user Снимок пользователя
+     */
+    void put(CachedUser user);
+
+    /**
+     * @param username Имя пользователя
+     */
+    void evict(String username);
+}
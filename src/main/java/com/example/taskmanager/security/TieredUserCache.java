@@ -0,0 +1,96 @@
+package com.example.taskmanager.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+/**
+ * Кэш {@link UserDetails} для {@link org.springframework.security.authentication.dao.DaoAuthenticationProvider}:
+ * повторный вход через форму или HTTP Basic не загружает пользователя заново.
+ * <p>
+ * Первый уровень — Caffeine в памяти узла, второй — необязательный {@link SharedUserCache},
+ * общий для узлов. Промах первого уровня заполняется из второго. Если пароль из кэша не подошел,
+ * провайдер сам перезагружает пользователя из базы и проверяет пароль еще раз, поэтому устаревшая
+ * запись не блокирует вход. Записи удаляются при смене имени или пароля в
+ * {@link com.example.taskmanager.service.UserService}; на других узлах первый уровень доживает
+ * до конца своего короткого срока.
+ */
+@Slf4j
+public class TieredUserCache implements UserCache, MeterBinder {
+
+    private final boolean enabled;
+    private final Cache<String, CachedUser> local;
+    private final SharedUserCache shared;
+
+    /**
+     * @param enabled Включен ли кэш; выключенный ничего не хранит
+     * @param maxSize Максимальное число пользователей на первом уровне
+     * @param ttl     Время жизни записи первого уровня
+     * @param shared  Общий уровень или {@code null}
+     */
+    public TieredUserCache(boolean enabled, long maxSize, Duration ttl, SharedUserCache shared) {
+        this.enabled = enabled;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.shared = shared;
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        if (!enabled) {
+            return null;
+        }
+        CachedUser user = local.getIfPresent(username);
+        if (user == null && shared != null) {
+            try {
+                user = shared.get(username);
+            } catch (RuntimeException e) {
+                log.warn("Shared user cache lookup failed for {}", username, e);
+            }
+            if (user != null) {
+                local.put(username, user);
+            }
+        }
+        return user == null ? null : user.toPrincipal();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (!enabled || !(user instanceof UserPrincipal principal) || principal.getPassword() == null) {
+            return;
+        }
+        CachedUser cached = CachedUser.of(principal);
+        local.put(cached.username(), cached);
+        if (shared != null) {
+            try {
+                shared.put(cached);
+            } catch (RuntimeException e) {
+                log.warn("Shared user cache update failed for {}", cached.username(), e);
+            }
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        local.invalidate(username);
+        if (shared != null) {
+            // Ошибку не глушим: устаревший пароль в общем кэше принимался бы на всех узлах
+            shared.evict(username);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, local, "auth-users");
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.taskmanager.security;
+
+/**
+ * Проверенные данные токена.
+ *
+ * @param userId              ID пользователя
+ * @param username            Имя пользователя на момент выдачи токена
+ * @param role                Роль пользователя на момент выдачи токена
+ * @param expiresAt           Срок действия (секунды эпохи)
+ * @param passwordFingerprint Отпечаток хеша пароля (только для токенов обновления, иначе 0)
+ */
+public record TokenClaims(long userId, String username, String role, long expiresAt, long passwordFingerprint) {
+}
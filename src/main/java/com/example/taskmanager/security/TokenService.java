@@ -0,0 +1,302 @@
+package com.example.taskmanager.security;
+
+import com.example.taskmanager.model.User;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Выдает и проверяет подписанные токены доступа и обновления.
+ * <p>
+ * Токен — это {@code base64url(данные).base64url(HMAC-SHA256(данные))}. Данные содержат ID,
+ * имя и роль пользователя и срок действия, поэтому проверка токена не обращается ни к сессии,
+ * ни к таблице users, и любой узел с тем же секретом принимает токены любого другого узла.
+ * <p>
+ * Проверка выполняется на каждом запросе, поэтому она почти не выделяет памяти: HMAC и
+ * буферы берутся из {@link ThreadLocal}, base64 декодируется вручную в эти буферы, а
+ * подпись сравнивается за постоянное время. Новые объекты создаются только для имени и роли.
+ * <p>
+ * Токен обновления дополнительно содержит отпечаток хеша пароля пользователя: после смены
+ * пароля ранее выданные токены обновления перестают приниматься.
+ */
+@Slf4j
+public class TokenService {
+
+    static final byte VERSION = 1;
+    static final byte ACCESS = 1;
+    static final byte REFRESH = 2;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final int HEADER_LENGTH = 1 + 1 + 8 + 8 + 8 + 1;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_PAYLOAD_LENGTH = HEADER_LENGTH + 2 * MAX_TEXT_LENGTH;
+    private static final int MAX_TOKEN_LENGTH = encodedLength(MAX_PAYLOAD_LENGTH) + 1 + encodedLength(SIGNATURE_LENGTH);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+    private final Clock clock;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * @param secret     Секрет HMAC в base64 (не короче 32 байт); пустой — случайный секрет этого процесса
+     * @param accessTtl  Срок действия токена доступа
+     * @param refreshTtl Срок действия токена обновления
+     * @param clock      Часы для проверки сроков
+     */
+    public TokenService(String secret, Duration accessTtl, Duration refreshTtl, Clock clock) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            log.warn("app.auth.tokens.secret is not set; using a random key, so tokens are rejected "
+                    + "by other nodes and after a restart");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+            if (keyBytes.length < 32) {
+                throw new IllegalArgumentException("app.auth.tokens.secret must be at least 32 bytes");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+        this.clock = clock;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(newMac()));
+    }
+
+    /**
+     * @return Срок действия токена доступа
+     */
+    public Duration getAccessTtl() {
+        return accessTtl;
+    }
+
+    /**
+     * Выдает токен доступа.
+     *
+     * @param user Пользователь
+     * @return Токен доступа
+     */
+    public String issueAccessToken(User user) {
+        return issue(ACCESS, user, accessTtl, 0);
+    }
+
+    /**
+     * Выдает токен обновления, привязанный к текущему хешу пароля пользователя.
+     *
+     * @param user Пользователь с хешем пароля
+     * @return Токен обновления
+     */
+    public String issueRefreshToken(User user) {
+        return issue(REFRESH, user, refreshTtl, passwordFingerprint(user.getPassword()));
+    }
+
+    /**
+     * Проверяет токен доступа.
+     *
+     * @param token Токен из заголовка Authorization
+     * @return Данные токена или null, если токен поврежден, подделан или истек
+     */
+    public TokenClaims verifyAccessToken(String token) {
+        return verify(token, ACCESS);
+    }
+
+    /**
+     * Проверяет токен обновления. Отпечаток пароля проверяется отдельно
+     * методом {@link #matchesPassword}, так как для этого нужна строка пользователя.
+     *
+     * @param token Токен обновления
+     * @return Данные токена или null, если токен поврежден, подделан или истек
+     */
+    public TokenClaims verifyRefreshToken(String token) {
+        return verify(token, REFRESH);
+    }
+
+    /**
+     * Проверяет, что токен обновления выдан при текущем пароле пользователя.
+     *
+     * @param claims Данные токена обновления
+     * @param user   Пользователь из базы
+     * @return true, если пароль с момента выдачи токена не менялся
+     */
+    public boolean matchesPassword(TokenClaims claims, User user) {
+        return claims.passwordFingerprint() == passwordFingerprint(user.getPassword());
+    }
+
+    private String issue(byte type, User user, Duration ttl, long fingerprint) {
+        byte[] role = toBytes(user.getRole());
+        byte[] username = toBytes(user.getUsername());
+        byte[] payload = new byte[HEADER_LENGTH + role.length + username.length];
+        payload[0] = VERSION;
+        payload[1] = type;
+        putLong(payload, 2, user.getId());
+        putLong(payload, 10, clock.instant().plus(ttl).getEpochSecond());
+        putLong(payload, 18, fingerprint);
+        payload[26] = (byte) role.length;
+        System.arraycopy(role, 0, payload, HEADER_LENGTH, role.length);
+        System.arraycopy(username, 0, payload, HEADER_LENGTH + role.length, username.length);
+
+        String encodedPayload = ENCODER.encodeToString(payload);
+        Mac mac = scratch.get().mac;
+        byte[] signature = mac.doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+        return encodedPayload + "." + ENCODER.encodeToString(signature);
+    }
+
+    private TokenClaims verify(String token, byte expectedType) {
+        if (token == null || token.length() > MAX_TOKEN_LENGTH) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || token.length() - dot - 1 != encodedLength(SIGNATURE_LENGTH)) {
+            return null;
+        }
+        Scratch buffers = scratch.get();
+        byte[] ascii = buffers.ascii;
+        for (int i = 0; i < dot; i++) {
+            char c = token.charAt(i);
+            if (c >= 128) {
+                return null;
+            }
+            ascii[i] = (byte) c;
+        }
+        try {
+            buffers.mac.update(ascii, 0, dot);
+            buffers.mac.doFinal(buffers.expected, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not compute token signature", e);
+        }
+        if (decode(token, dot + 1, token.length(), buffers.signature) != SIGNATURE_LENGTH
+                || !MessageDigest.isEqual(buffers.expected, buffers.signature)) {
+            return null;
+        }
+
+        byte[] payload = buffers.payload;
+        int length = decode(token, 0, dot, payload);
+        if (length < HEADER_LENGTH || payload[0] != VERSION || payload[1] != expectedType) {
+            return null;
+        }
+        long expiresAt = getLong(payload, 10);
+        if (clock.instant().getEpochSecond() >= expiresAt) {
+            return null;
+        }
+        int roleLength = payload[26] & 0xFF;
+        if (HEADER_LENGTH + roleLength > length) {
+            return null;
+        }
+        String role = new String(payload, HEADER_LENGTH, roleLength, StandardCharsets.UTF_8);
+        String username = new String(payload, HEADER_LENGTH + roleLength, length - HEADER_LENGTH - roleLength,
+                StandardCharsets.UTF_8);
+        return new TokenClaims(getLong(payload, 2), username, role, expiresAt, getLong(payload, 18));
+    }
+
+    private long passwordFingerprint(String passwordHash) {
+        byte[] digest = scratch.get().mac.doFinal(passwordHash.getBytes(StandardCharsets.UTF_8));
+        return getLong(digest, 0);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Декодирует base64url без дополнения из части строки в буфер.
+     *
+     * @return Число байт или -1, если строка не является каноничным base64url либо не помещается в буфер
+     */
+    private static int decode(String source, int from, int to, byte[] target) {
+        int bits = 0;
+        int bitCount = 0;
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            int value = c < 128 ? DECODE_TABLE[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                if (length == target.length) {
+                    return -1;
+                }
+                target[length++] = (byte) (bits >> bitCount);
+            }
+        }
+        // Неиспользуемые младшие биты последнего символа должны быть нулевыми,
+        // иначе у одного токена было бы несколько допустимых записей
+        if ((bits & ((1 << bitCount) - 1)) != 0) {
+            return -1;
+        }
+        return length;
+    }
+
+    private static int encodedLength(int bytes) {
+        return (bytes * 4 + 2) / 3;
+    }
+
+    private static byte[] toBytes(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Value is too long to be put into a token");
+        }
+        return bytes;
+    }
+
+    private static void putLong(byte[] target, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            target[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] source, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (source[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Буферы одного потока для проверки токенов без выделения памяти.
+     */
+    private static final class Scratch {
+
+        private final Mac mac;
+        private final byte[] ascii = new byte[MAX_TOKEN_LENGTH];
+        private final byte[] payload = new byte[MAX_PAYLOAD_LENGTH];
+        private final byte[] expected = new byte[SIGNATURE_LENGTH];
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+
+        Scratch(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
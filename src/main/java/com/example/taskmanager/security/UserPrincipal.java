@@ -0,0 +1,50 @@
+package com.example.taskmanager.security;
+
+import com.example.taskmanager.model.User;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Аутентифицированный пользователь в контексте безопасности.
+ * Помимо логина и пароля хранит ID пользователя, чтобы сервисы могли
+ * обращаться к его задачам без повторной загрузки строки из таблицы users.
+ */
+public class UserPrincipal extends org.springframework.security.core.userdetails.User {
+
+    private final Long id;
+
+    public UserPrincipal(User user) {
+        this(user.getId(), user.getUsername(), user.getPassword(), user.getRole());
+    }
+
+    /**
+     * Создает пользователя по отдельным полям, например из снимка в кэше.
+     *
+     * @param id       ID пользователя
+     * @param username Имя пользователя
+     * @param password Хеш пароля
+     * @param role     Роль
+     */
+    public UserPrincipal(Long id, String username, String password, String role) {
+        super(username, password, List.of(new SimpleGrantedAuthority(role)));
+        this.id = id;
+    }
+
+    /**
+     * Создает пользователя по данным проверенного токена, без пароля и без обращения к базе.
+     *
+     * @param claims Данные токена доступа
+     */
+    public UserPrincipal(TokenClaims claims) {
+        super(claims.username(), "", List.of(new SimpleGrantedAuthority(claims.role())));
+        this.id = claims.userId();
+    }
+
+    /**
+     * Идентификатор пользователя.
+     */
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.taskmanager.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Короткоживущий кэш успешно проверенных паролей: клиент, который присылает логин и пароль
+ * в каждом запросе, проходит BCrypt один раз за время жизни записи.
+ * <p>
+ * Открытые пароли не хранятся. Ключ записи — HMAC-SHA256 от имени и пароля на случайном
+ * ключе этого процесса, значение — хеш пароля, с которым пароль был сверен. Запись действует,
+ * только пока хеш пользователя тот же, поэтому после смены пароля она бесполезна даже на узле,
+ * который о смене не узнал; на своем узле {@link #invalidate} удаляет её сразу.
+ */
+public class VerifiedCredentialCache implements MeterBinder {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+    private final Cache<Credential, String> cache;
+
+    /**
+     * @param enabled Включен ли кэш; выключенный ничего не хранит
+     * @param maxSize Максимальное число записей
+     * @param ttl     Время жизни записи
+     */
+    public VerifiedCredentialCache(boolean enabled, long maxSize, Duration ttl) {
+        this.enabled = enabled;
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param username        Имя пользователя
+     * @param rawPassword     Предъявленный пароль
+     * @param encodedPassword Текущий хеш пароля пользователя
+     * @return {@code true}, если этот пароль недавно был сверен с этим же хешем
+     */
+    public boolean isVerified(String username, CharSequence rawPassword, String encodedPassword) {
+        if (!enabled || encodedPassword == null) {
+            return false;
+        }
+        return encodedPassword.equals(cache.getIfPresent(credential(username, rawPassword)));
+    }
+
+    /**
+     * Запоминает пароль, только что успешно сверенный с хешем.
+     *
+     * @param username        Имя пользователя
+     * @param rawPassword     Предъявленный пароль
+     * @param encodedPassword Хеш, с которым он совпал
+     */
+    public void remember(String username, CharSequence rawPassword, String encodedPassword) {
+        if (enabled && encodedPassword != null) {
+            cache.put(credential(username, rawPassword), encodedPassword);
+        }
+    }
+
+    /**
+     * Удаляет все записи пользователя. Перебирает кэш целиком, что допустимо
+     * для редких смен имени и пароля.
+     *
+     * @param username Имя пользователя
+     */
+    public void invalidate(String username) {
+        cache.asMap().keySet().removeIf(credential -> credential.username().equals(username));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "auth-credentials");
+    }
+
+    private Credential credential(String username, CharSequence rawPassword) {
+        Mac hmac = mac.get();
+        hmac.update(username.getBytes(StandardCharsets.UTF_8));
+        // Разделитель, чтобы пары ("ab", "c") и ("a", "bc") давали разные ключи
+        hmac.update((byte) 0);
+        byte[] digest = hmac.doFinal(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+        return new Credential(username, Base64.getEncoder().encodeToString(digest));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private record Credential(String username, String digest) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TokenResponse;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.security.TokenClaims;
+import com.example.taskmanager.security.TokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.stereotype.Service;
+
+/**
+ * Сервис выдачи токенов для режима аутентификации без сессий ({@code app.auth.tokens.enabled=true}).
+ * Вход проверяется тем же {@link AuthenticationManager}, что и форма входа, поэтому
+ * работают ограниченный пул хеширования и перехеширование паролей.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.auth.tokens.enabled", havingValue = "true")
+public class AuthTokenService {
+
+    static final String TOKEN_TYPE = "Bearer";
+
+    private final AuthenticationConfiguration authenticationConfiguration;
+    private final TokenService tokenService;
+    private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
+
+    /**
+     * Проверяет учетные данные и выдает пару токенов.
+     *
+     * @param username Имя пользователя
+     * @param password Пароль
+     * @return Токены доступа и обновления
+     * @throws org.springframework.security.core.AuthenticationException если учетные данные неверны
+     */
+    public TokenResponse login(String username, String password) {
+        AuthenticationManager authenticationManager;
+        try {
+            authenticationManager = authenticationConfiguration.getAuthenticationManager();
+        } catch (Exception e) {
+            throw new IllegalStateException("Authentication manager is not available", e);
+        }
+        authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(username, password));
+        // После входа пароль мог быть перехеширован, поэтому пользователь читается заново
+        return issue(userLookupCache.get(username));
+    }
+
+    /**
+     * Выдает новую пару токенов по токену обновления.
+     * Строка пользователя читается из базы: роль и имя берутся актуальные, а после
+     * смены пароля прежние токены обновления отклоняются.
+     *
+     * @param refreshToken Токен обновления
+     * @return Новые токены доступа и обновления
+     * @throws BadCredentialsException если токен недействителен или пароль с тех пор изменился
+     */
+    public TokenResponse refresh(String refreshToken) {
+        TokenClaims claims = tokenService.verifyRefreshToken(refreshToken);
+        if (claims == null) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        User user = userRepository.findById(claims.userId())
+                .filter(candidate -> tokenService.matchesPassword(claims, candidate))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        return issue(user);
+    }
+
+    private TokenResponse issue(User user) {
+        return new TokenResponse(tokenService.issueAccessToken(user), tokenService.issueRefreshToken(user),
+                TOKEN_TYPE, tokenService.getAccessTtl().toSeconds());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.event.TaskDueEvent;
+
+/**
+ * Получатель напоминаний о сроках задач, например почта или push-уведомления.
+ * Подключается объявлением бина этого типа; без таких бинов напоминания только пишутся в лог.
+ * <p>
+ * Вызывается из потока планировщика, поэтому медленную доставку реализация выполняет
+ * асинхронно. Исключения записываются в лог и не мешают остальным получателям.
+ */
+public interface DueDateNotifier {
+
+    /**
+     * @param event Напоминание о сроке задачи
+     */
+    void deliver(TaskDueEvent event);
+}
@@ -0,0 +1,16 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.event.TaskDueEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Получатель напоминаний по умолчанию: пишет их в лог.
+ */
+@Slf4j
+class LoggingDueDateNotifier implements DueDateNotifier {
+
+    @Override
+    public void deliver(TaskDueEvent event) {
+        log.info("Task {} of user {} is {} (due {})", event.taskId(), event.userId(), event.type(), event.dueDate());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.taskmanager.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Минимальное чтение и запись CSV (RFC 4180): значения в кавычках,
+ * экранирование кавычек удвоением, переводы строк внутри значений.
+ */
+final class TaskCsv {
+
+    private TaskCsv() {
+    }
+
+    /**
+     * Читает одну запись из потока.
+     *
+     * @param reader Поток символов (должен поддерживать посимвольное чтение с буфером)
+     * @return Значения записи или null в конце потока
+     * @throws IOException при ошибке чтения
+     */
+    static List<String> readRecord(Reader reader) throws IOException {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * Записывает одну запись, заключая в кавычки значения со спецсимволами.
+     *
+     * @param writer Поток вывода
+     * @param values Значения (null записывается как пустое значение)
+     * @throws IOException при ошибке записи
+     */
+    static void writeRecord(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
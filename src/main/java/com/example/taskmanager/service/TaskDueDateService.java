@@ -0,0 +1,334 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskDueDate;
+import com.example.taskmanager.event.TaskDueEvent;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.repository.TaskRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Планировщик сроков задач: напоминает о приближающемся сроке (DUE_SOON) и сообщает
+ * о просроченных задачах (OVERDUE) через бины {@link DueDateNotifier}.
+ * <p>
+ * В памяти хранятся только незавершенные задачи со сроком в окне: от {@code app.due-dates.catch-up}
+ * назад до {@code due-soon + horizon} вперед. Окно загружается при запуске и затем сдвигается
+ * по дням: подгружается только очередной день запросом по индексу (due_date, id) порциями
+ * по {@code batch-size}, поэтому таблица задач не читается целиком ни при запуске, ни по расписанию.
+ * Проверка раз в {@code check-interval} снимает напоминания с начала очереди.
+ * <p>
+ * Очередь — дерево, упорядоченное по дате напоминания и ID задачи, а запись задачи находится
+ * по её ID через хеш-таблицу. Поэтому создание, изменение и удаление задачи переносят её
+ * в очереди за O(log n) по событиям {@link TaskEvent}, без обращения к базе.
+ * <p>
+ * Срок хранится с точностью до дня: DUE_SOON приходит за {@code due-soon} до срока,
+ * OVERDUE — на следующий день после срока. Отправленные напоминания не сохраняются, поэтому
+ * после перезапуска напоминания для задач из окна catch-up могут прийти повторно.
+ * Как и кэши, планировщик локален для узла.
+ */
+@Slf4j
+@Service
+public class TaskDueDateService implements MeterBinder {
+
+    private static final Comparator<Entry> FIRE_ORDER =
+            Comparator.comparing(Entry::fireDate).thenComparing(Entry::taskId);
+
+    private final TaskRepository taskRepository;
+    private final Clock clock;
+    private final List<DueDateNotifier> notifiers;
+    private final boolean enabled;
+    private final long dueSoonDays;
+    private final long horizonDays;
+    private final long catchUpDays;
+    private final int batchSize;
+
+    /**
+     * Записи в порядке напоминаний и те же записи по ID задачи. Доступ — под монитором сервиса.
+     */
+    private final NavigableSet<Entry> queue = new TreeSet<>(FIRE_ORDER);
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Первый еще не загруженный день окна; null, пока окно не загружено.
+     */
+    private LocalDate loadedUntil;
+
+    private final Map<TaskDueEvent.Type, AtomicLong> delivered = new EnumMap<>(TaskDueEvent.Type.class);
+
+    public TaskDueDateService(TaskRepository taskRepository, Clock clock,
+            ObjectProvider<DueDateNotifier> notifiers,
+            @Value("${app.due-dates.enabled:true}") boolean enabled,
+            @Value("${app.due-dates.due-soon:1d}") Duration dueSoon,
+            @Value("${app.due-dates.horizon:1d}") Duration horizon,
+            @Value("${app.due-dates.catch-up:1d}") Duration catchUp,
+            @Value("${app.due-dates.batch-size:1000}") int batchSize) {
+        this.taskRepository = taskRepository;
+        this.clock = clock;
+        List<DueDateNotifier> beans = notifiers.orderedStream().toList();
+        this.notifiers = beans.isEmpty() ? List.of(new LoggingDueDateNotifier()) : beans;
+        this.enabled = enabled;
+        this.dueSoonDays = dueSoon.toDays();
+        this.horizonDays = horizon.toDays();
+        this.catchUpDays = catchUp.toDays();
+        this.batchSize = batchSize;
+        for (TaskDueEvent.Type type : TaskDueEvent.Type.values()) {
+            delivered.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * Загружает окно сроков при запуске приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        synchronized (this) {
+            loadedUntil = today.minusDays(catchUpDays);
+        }
+        int loaded = extendWindow(today);
+        log.info("Due date scheduler loaded {} open tasks due from {} to {}", loaded,
+                today.minusDays(catchUpDays), today.plusDays(dueSoonDays + horizonDays));
+    }
+
+    /**
+     * Сдвигает окно на наступившие дни и отправляет напоминания, время которых пришло.
+     */
+    @Scheduled(fixedDelayString = "${app.due-dates.check-interval:PT1M}")
+    public void check() {
+        synchronized (this) {
+            if (loadedUntil == null) {
+                return;
+            }
+        }
+        LocalDate today = LocalDate.now(clock);
+        extendWindow(today);
+        deliver(poll(today));
+    }
+
+    /**
+     * Переносит задачу в очереди после фиксации транзакции, чтобы откаченные изменения
+     * не порождали напоминаний. Изменение, не затронувшее срок и завершенность задачи,
+     * очередь не трогает, и уже отправленное напоминание не повторяется.
+     *
+     * @param event Событие изменения задачи
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.type()) {
+            case CREATED -> reschedule(event.userId(), event.task());
+            case UPDATED -> {
+                Task task = event.task();
+                if (!Objects.equals(event.previousDueDate(), task.getDueDate())
+                        || isOpen(event.previousStatus()) != isOpen(task.getStatus())) {
+                    reschedule(event.userId(), task);
+                }
+            }
+            case DELETED -> unschedule(event.taskId());
+            // Импортированных задач может быть много: их сроки в окне читаются одним запросом
+            case IMPORTED -> loadUser(event.userId());
+            default -> {
+                // Порядок задач на сроки не влияет
+            }
+        }
+    }
+
+    /**
+     * @return Количество задач, для которых ожидается напоминание
+     */
+    public synchronized int getScheduledCount() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("task.due-dates.scheduled", this, TaskDueDateService::getScheduledCount)
+                .description("Open tasks with a due date waiting for a reminder")
+                .register(registry);
+        for (Map.Entry<TaskDueEvent.Type, AtomicLong> count : delivered.entrySet()) {
+            FunctionCounter.builder("task.due-dates.notifications", count.getValue(), AtomicLong::get)
+                    .description("Due date reminders sent")
+                    .tag("type", count.getKey().name())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Загружает дни от первого незагруженного до конца окна. Монитор отпускается между днями,
+     * чтобы события задач не ждали загрузки всего окна при запуске.
+     *
+     * @return Количество загруженных задач
+     */
+    private int extendWindow(LocalDate today) {
+        LocalDate until = today.plusDays(dueSoonDays + horizonDays + 1);
+        int loaded = 0;
+        while (true) {
+            synchronized (this) {
+                if (!loadedUntil.isBefore(until)) {
+                    return loaded;
+                }
+                // День загружается под монитором: событие о задаче этого дня, пришедшее во время
+                // загрузки, применяется после нее и не теряется
+                loaded += loadDay(loadedUntil, today);
+                loadedUntil = loadedUntil.plusDays(1);
+            }
+        }
+    }
+
+    private int loadDay(LocalDate dueDate, LocalDate today) {
+        int loaded = 0;
+        Long afterId = 0L;
+        List<TaskDueDate> batch;
+        do {
+            batch = taskRepository.findOpenDueDates(dueDate, afterId, TaskStatus.COMPLETED, Limit.of(batchSize));
+            for (TaskDueDate task : batch) {
+                if (!entries.containsKey(task.id())) {
+                    schedule(task.id(), task.userId(), task.dueDate(), today);
+                }
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).id();
+            }
+            loaded += batch.size();
+        } while (batch.size() == batchSize);
+        return loaded;
+    }
+
+    private synchronized void loadUser(Long userId) {
+        if (loadedUntil == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        for (TaskDueDate task : taskRepository.findOpenDueDatesByUserId(userId, today.minusDays(catchUpDays),
+                loadedUntil, TaskStatus.COMPLETED)) {
+            if (!entries.containsKey(task.id())) {
+                schedule(task.id(), task.userId(), task.dueDate(), today);
+            }
+        }
+    }
+
+    private synchronized void reschedule(Long userId, Task task) {
+        if (loadedUntil == null) {
+            return;
+        }
+        remove(task.getId());
+        LocalDate today = LocalDate.now(clock);
+        LocalDate dueDate = task.getDueDate();
+        // Задачи за пределами окна будут загружены из базы, когда окно до них дойдет
+        if (isOpen(task.getStatus()) && dueDate != null
+                && !dueDate.isBefore(today.minusDays(catchUpDays)) && dueDate.isBefore(loadedUntil)) {
+            schedule(task.getId(), userId, dueDate, today);
+        }
+    }
+
+    private synchronized void unschedule(Long taskId) {
+        remove(taskId);
+    }
+
+    /**
+     * Снимает с начала очереди напоминания, время которых пришло. После DUE_SOON задача
+     * остается в очереди до OVERDUE, после OVERDUE — удаляется.
+     */
+    private synchronized List<TaskDueEvent> poll(LocalDate today) {
+        List<TaskDueEvent> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.first().fireDate().isAfter(today)) {
+            Entry entry = queue.pollFirst();
+            due.add(new TaskDueEvent(entry.stage(), entry.userId(), entry.taskId(), entry.dueDate()));
+            if (entry.stage() == TaskDueEvent.Type.DUE_SOON) {
+                add(Entry.overdue(entry.taskId(), entry.userId(), entry.dueDate()));
+            } else {
+                entries.remove(entry.taskId());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Рассылает напоминания вне монитора, чтобы медленный получатель не задерживал события задач.
+     */
+    private void deliver(List<TaskDueEvent> events) {
+        for (TaskDueEvent event : events) {
+            for (DueDateNotifier notifier : notifiers) {
+                try {
+                    notifier.deliver(event);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to deliver {} reminder for task {}", event.type(), event.taskId(), e);
+                }
+            }
+            delivered.get(event.type()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Ставит задачу в очередь: к напоминанию DUE_SOON, а если срок уже прошел — сразу к OVERDUE.
+     */
+    private void schedule(Long taskId, Long userId, LocalDate dueDate, LocalDate today) {
+        add(dueDate.isBefore(today)
+                ? Entry.overdue(taskId, userId, dueDate)
+                : new Entry(taskId, userId, dueDate, TaskDueEvent.Type.DUE_SOON, dueDate.minusDays(dueSoonDays)));
+    }
+
+    private void add(Entry entry) {
+        queue.add(entry);
+        entries.put(entry.taskId(), entry);
+    }
+
+    private void remove(Long taskId) {
+        Entry entry = entries.remove(taskId);
+        if (entry != null) {
+            queue.remove(entry);
+        }
+    }
+
+    /**
+     * Задачи без статуса (от старых версий) считаются незавершенными, как и в статистике.
+     */
+    private static boolean isOpen(TaskStatus status) {
+        return status != TaskStatus.COMPLETED;
+    }
+
+    /**
+     * Ожидаемое напоминание о задаче.
+     *
+     * @param stage    Тип следующего напоминания
+     * @param fireDate День, начиная с которого напоминание отправляется
+     */
+    private record Entry(Long taskId, Long userId, LocalDate dueDate, TaskDueEvent.Type stage, LocalDate fireDate) {
+
+        static Entry overdue(Long taskId, Long userId, LocalDate dueDate) {
+            return new Entry(taskId, userId, dueDate, TaskDueEvent.Type.OVERDUE, dueDate.plusDays(1));
+        }
+    }
+}
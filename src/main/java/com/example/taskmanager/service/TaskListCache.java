@@ -0,0 +1,85 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.repository.TaskRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Кэш списков задач: для каждого пользователя хранит его задачи в порядке отображения
+ * в виде неизменяемых {@link TaskView}, поэтому повторное чтение списка не обращается
+ * к базе и не создает сущностей. Размер ограничен общим числом задач во всех списках.
+ * <p>
+ * Запись пользователя сбрасывается после каждого изменения его задач, о котором сообщает
+ * {@link TaskEvent}: после фиксации транзакции, но раньше остальных подписчиков, так что
+ * новая версия ETag и уведомления клиентов никогда не опережают сброс. Если сброс совпал
+ * с загрузкой списка, Caffeine дожидается загрузки и удаляет её результат.
+ * Попадания и промахи публикуются в метриках {@code cache.*} с тегом {@code cache=task-lists}.
+ * <p>
+ * Кэш локален для узла и отключается вместе с кэшем второго уровня ({@code app.entity-cache.enabled}).
+ */
+@Component
+public class TaskListCache implements MeterBinder {
+
+    private final TaskRepository taskRepository;
+    private final boolean enabled;
+    private final Cache<Long, List<TaskView>> tasks;
+
+    public TaskListCache(TaskRepository taskRepository,
+            @Value("${app.entity-cache.enabled:true}") boolean enabled,
+            @Value("${app.task-list-cache.max-tasks:1000000}") long maxTasks,
+            @Value("${app.task-list-cache.ttl:10m}") Duration ttl) {
+        this.taskRepository = taskRepository;
+        this.enabled = enabled;
+        this.tasks = Caffeine.newBuilder()
+                .maximumWeight(maxTasks)
+                // Пустой список тоже занимает место, поэтому вес на единицу больше длины
+                .weigher((Long userId, List<TaskView> list) -> list.size() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает задачи пользователя из кэша или загружает их из базы.
+     *
+     * @param userId ID пользователя
+     * @return Неизменяемый список задач по индексу сортировки, затем по ID
+     */
+    public List<TaskView> getTasks(Long userId) {
+        return enabled ? tasks.get(userId, this::load) : load(userId);
+    }
+
+    /**
+     * Сбрасывает список пользователя после любого изменения его задач:
+     * даже правка задачи может изменить её индекс сортировки.
+     *
+     * @param event Событие изменения задачи
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        tasks.invalidate(event.userId());
+    }
+
+    private List<TaskView> load(Long userId) {
+        return List.copyOf(taskRepository.findViewsByUserId(userId));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, tasks, "task-lists");
+    }
+}
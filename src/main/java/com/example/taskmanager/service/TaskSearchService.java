@@ -0,0 +1,414 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskSearchDocument;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.charfilter.MappingCharFilter;
+import org.apache.lucene.analysis.charfilter.NormalizeCharMap;
+import org.apache.lucene.analysis.ru.RussianLightStemFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Сервис полнотекстового поиска по заголовку и описанию задач.
+ * <p>
+ * Инвертированный индекс Lucene хранится в файлах на диске (по умолчанию во временном
+ * каталоге) и не требует памяти кучи на каждую задачу. Индекс не является источником
+ * истины: при запуске он перестраивается из базы в фоновом потоке, а затем поддерживается
+ * событиями {@link TaskEvent}. Изменения становятся видны поиску в течение
+ * {@code app.search.max-staleness} без переоткрытия читателя на каждую запись.
+ * <p>
+ * Текст разбивается на слова, приводится к нижнему регистру, «ё» заменяется на «е»,
+ * а русские окончания отбрасываются легким стеммером, поэтому запрос «задачи» находит
+ * «задача». Последнее слово запроса дополнительно ищется по префиксу, чтобы
+ * поиск работал по мере набора.
+ * <p>
+ * Индекс обновляется только событиями своего экземпляра, поэтому при нескольких
+ * экземплярах на одной базе сервис отключается ({@code app.search.enabled=false}).
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.search.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskSearchService {
+
+    static final String ID_FIELD = "id";
+    static final String USER_FIELD = "user";
+    static final String TITLE_FIELD = "title";
+    static final String DESCRIPTION_FIELD = "description";
+
+    /**
+     * Заголовок короче и точнее описания, поэтому совпадения в нем весят больше.
+     */
+    private static final float TITLE_BOOST = 2.0f;
+
+    /**
+     * Более короткий префикс раскрывается в слишком большое число терминов.
+     */
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final NormalizeCharMap YO_MAP;
+
+    static {
+        NormalizeCharMap.Builder builder = new NormalizeCharMap.Builder();
+        builder.add("ё", "е");
+        builder.add("Ё", "Е");
+        YO_MAP = builder.build();
+    }
+
+    private final TaskRepository taskRepository;
+    private final int batchSize;
+    private final Path indexPath;
+    private final boolean temporaryIndex;
+    private final Analyzer analyzer = new TaskTextAnalyzer(true);
+    private final Analyzer queryAnalyzer = new TaskTextAnalyzer(false);
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Задачи, измененные событиями во время массовой индексации. Массовая индексация
+     * их пропускает: прочитанные ею данные могут быть старше записанных событием.
+     */
+    private final Set<Long> touchedDuringBulk = new HashSet<>();
+    private int bulkOperations;
+    private volatile boolean ready;
+
+    public TaskSearchService(TaskRepository taskRepository,
+            @Value("${app.search.index-dir:}") String indexDir,
+            @Value("${app.search.rebuild-batch-size:1000}") int batchSize,
+            @Value("${app.search.max-staleness:1s}") Duration maxStaleness) {
+        this.taskRepository = taskRepository;
+        this.batchSize = batchSize;
+        try {
+            this.temporaryIndex = indexDir == null || indexDir.isBlank();
+            this.indexPath = temporaryIndex ? Files.createTempDirectory("task-search") : Path.of(indexDir);
+            this.directory = FSDirectory.open(indexPath);
+            // Индекс всегда строится заново из базы, прежнее содержимое каталога не нужно
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+            this.searcherManager = new SearcherManager(writer, new SearcherFactory());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open task search index", e);
+        }
+        double staleSeconds = maxStaleness.toMillis() / 1000.0;
+        this.reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager,
+                staleSeconds, Math.min(staleSeconds, 0.025));
+        reopenThread.setName("task-search-reopen");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+    }
+
+    /**
+     * Запускает перестроение индекса из базы в фоновом потоке после старта приложения.
+     * Пока индекс строится, поиск возвращает только уже проиндексированные задачи.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild() {
+        indexer.execute(this::rebuild);
+    }
+
+    /**
+     * Индексирует все задачи из базы порциями по возрастанию ID.
+     */
+    void rebuild() {
+        long started = System.nanoTime();
+        long indexed = indexFromRepository(afterId -> taskRepository.findSearchDocuments(afterId, Limit.of(batchSize)));
+        ready = true;
+        log.info("Task search index built: {} tasks in {} ms", indexed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Ищет задачи пользователя по заголовку и описанию.
+     * Все слова запроса должны встретиться в задаче; последнее слово может быть неполным.
+     *
+     * @param userId ID владельца задач
+     * @param query  Текст запроса
+     * @param limit  Максимальное количество результатов
+     * @return ID найденных задач в порядке убывания релевантности
+     */
+    public List<Long> search(Long userId, String query, int limit) {
+        Query luceneQuery = buildQuery(userId, query);
+        if (luceneQuery == null) {
+            return List.of();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                ScoreDoc[] hits = searcher.search(luceneQuery, limit).scoreDocs;
+                StoredFields storedFields = searcher.storedFields();
+                Set<String> fields = Set.of(ID_FIELD);
+                List<Long> ids = new ArrayList<>(hits.length);
+                for (ScoreDoc hit : hits) {
+                    ids.add(Long.valueOf(storedFields.document(hit.doc, fields).get(ID_FIELD)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Task search failed", e);
+        }
+    }
+
+    /**
+     * @return true, если начальное построение индекса завершено
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Добавляет или заменяет задачи в индексе.
+     *
+     * @param documents Индексируемые поля задач
+     */
+    public void index(Collection<TaskSearchDocument> documents) {
+        try {
+            for (TaskSearchDocument document : documents) {
+                writer.updateDocument(new Term(ID_FIELD, document.id().toString()), toDocument(document));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not index tasks", e);
+        }
+    }
+
+    /**
+     * Делает все записанные изменения видимыми поиску, не дожидаясь фонового обновления.
+     */
+    public void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not refresh task search index", e);
+        }
+    }
+
+    /**
+     * Применяет изменение задачи к индексу.
+     * Срабатывает после фиксации транзакции, чтобы откаченные изменения не попадали в поиск.
+     *
+     * @param event Событие изменения задачи
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                Task task = event.task();
+                applyEvent(task.getId(), () -> index(List.of(new TaskSearchDocument(
+                        task.getId(), event.userId(), task.getTitle(), task.getDescription()))));
+            }
+            case DELETED -> applyEvent(event.taskId(), () -> delete(event.taskId()));
+            // Импорт не сообщает отдельные задачи, поэтому задачи пользователя переиндексируются целиком
+            case IMPORTED -> indexer.execute(() -> indexFromRepository(afterId ->
+                    taskRepository.findSearchDocumentsByUserId(event.userId(), afterId, Limit.of(batchSize))));
+            default -> {
+                // Порядок задач на поиск не влияет
+            }
+        }
+    }
+
+    /**
+     * Останавливает фоновые потоки и закрывает индекс; временный каталог индекса удаляется.
+     */
+    @PreDestroy
+    public void close() {
+        indexer.shutdownNow();
+        reopenThread.close();
+        try {
+            IOUtils.close(searcherManager, writer, directory, analyzer, queryAnalyzer);
+            if (temporaryIndex) {
+                IOUtils.rm(indexPath);
+            }
+        } catch (IOException e) {
+            log.warn("Could not close task search index", e);
+        }
+    }
+
+    private void applyEvent(Long taskId, Runnable write) {
+        synchronized (touchedDuringBulk) {
+            if (bulkOperations > 0) {
+                touchedDuringBulk.add(taskId);
+            }
+            write.run();
+        }
+    }
+
+    private void delete(Long taskId) {
+        try {
+            writer.deleteDocuments(new Term(ID_FIELD, taskId.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not remove task " + taskId + " from search index", e);
+        }
+    }
+
+    private long indexFromRepository(BatchSource source) {
+        synchronized (touchedDuringBulk) {
+            bulkOperations++;
+        }
+        long indexed = 0;
+        try {
+            Long afterId = 0L;
+            List<TaskSearchDocument> batch;
+            do {
+                batch = source.next(afterId);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                synchronized (touchedDuringBulk) {
+                    index(batch.stream().filter(document -> !touchedDuringBulk.contains(document.id())).toList());
+                }
+                indexed += batch.size();
+                afterId = batch.get(batch.size() - 1).id();
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Task search indexing stopped after {} tasks", indexed, e);
+        } finally {
+            synchronized (touchedDuringBulk) {
+                if (--bulkOperations == 0) {
+                    touchedDuringBulk.clear();
+                }
+            }
+        }
+        refresh();
+        return indexed;
+    }
+
+    private Query buildQuery(Long userId, String text) {
+        List<String> words = analyze(queryAnalyzer, text);
+        if (words.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USER_FIELD, userId.toString())), BooleanClause.Occur.FILTER);
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            boolean prefix = i == words.size() - 1 && word.length() >= MIN_PREFIX_LENGTH;
+            BooleanQuery.Builder wordQuery = new BooleanQuery.Builder();
+            for (String stem : analyze(analyzer, word)) {
+                wordQuery.add(new BoostQuery(new TermQuery(new Term(TITLE_FIELD, stem)), TITLE_BOOST),
+                        BooleanClause.Occur.SHOULD);
+                wordQuery.add(new TermQuery(new Term(DESCRIPTION_FIELD, stem)), BooleanClause.Occur.SHOULD);
+            }
+            if (prefix) {
+                wordQuery.add(new BoostQuery(new PrefixQuery(new Term(TITLE_FIELD, word)), TITLE_BOOST),
+                        BooleanClause.Occur.SHOULD);
+                wordQuery.add(new PrefixQuery(new Term(DESCRIPTION_FIELD, word)), BooleanClause.Occur.SHOULD);
+            }
+            query.add(wordQuery.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private static List<String> analyze(Analyzer analyzer, String text) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(TITLE_FIELD, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+
+    private static Document toDocument(TaskSearchDocument task) {
+        Document document = new Document();
+        document.add(new StringField(ID_FIELD, task.id().toString(), Field.Store.YES));
+        document.add(new StringField(USER_FIELD, task.userId().toString(), Field.Store.NO));
+        document.add(new TextField(TITLE_FIELD, task.title(), Field.Store.NO));
+        if (task.description() != null) {
+            document.add(new TextField(DESCRIPTION_FIELD, task.description(), Field.Store.NO));
+        }
+        return document;
+    }
+
+    @FunctionalInterface
+    private interface BatchSource {
+        List<TaskSearchDocument> next(Long afterId);
+    }
+
+    /**
+     * Анализатор текста задач: слова по Unicode, нижний регистр, «ё» → «е»
+     * и, для индексируемых терминов, легкий русский стеммер.
+     */
+    private static final class TaskTextAnalyzer extends Analyzer {
+
+        private final boolean stem;
+
+        TaskTextAnalyzer(boolean stem) {
+            this.stem = stem;
+        }
+
+        @Override
+        protected Reader initReader(String fieldName, Reader reader) {
+            return new MappingCharFilter(YO_MAP, reader);
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer source = new StandardTokenizer();
+            TokenStream result = new LowerCaseFilter(source);
+            if (stem) {
+                result = new RussianLightStemFilter(result);
+            }
+            return new TokenStreamComponents(source, result);
+        }
+    }
+}
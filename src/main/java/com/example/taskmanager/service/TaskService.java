@@ -1,14 +1,40 @@
 package com.example.taskmanager.service;
 
+import com.example.taskmanager.dto.BulkImportResult;
+import com.example.taskmanager.dto.TaskChanges;
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskFileFormat;
+import com.example.taskmanager.dto.TaskPage;
+import com.example.taskmanager.dto.TaskRequest;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.exception.FeatureDisabledException;
 import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskSortKey;
 import com.example.taskmanager.model.TaskStatus;
 import com.example.taskmanager.repository.TaskRepository;
 import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.security.UserPrincipal;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -17,100 +43,458 @@ import java.util.Optional;
  */
 @Service
 @RequiredArgsConstructor
+@Timed(value = "task.service", description = "Time spent in TaskService methods")
 public class TaskService {
 
+    /**
+     * Максимальный размер страницы при постраничной выдаче.
+     */
+    static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Шаг между индексами сортировки соседних задач.
+     * Разреженная нумерация позволяет переместить задачу, изменив одну строку.
+     */
+    static final int ORDER_GAP = 1024;
+
+    /**
+     * Максимальное количество результатов поиска.
+     */
+    static final int MAX_SEARCH_RESULTS = 100;
+
     private final TaskRepository taskRepository;
     private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
+    private final TaskListCache taskListCache;
+    private final TaskStatsService taskStatsService;
+    private final TaskTransferService taskTransferService;
+    private final TaskSyncService taskSyncService;
+    private final ObjectProvider<TaskStreamService> taskStreamService;
+    private final ObjectProvider<TaskSearchService> taskSearchService;
+    private final TaskVersionService taskVersionService;
+    private final TaskWriteBehindService taskWriteBehindService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     /**
-     * Получает текущего авторизованного пользователя из контекста безопасности.
+     * Получает ID текущего авторизованного пользователя.
+     * ID берется из {@link UserPrincipal} в контексте безопасности; для других
+     * типов аутентификации пользователь ищется в {@link UserLookupCache}.
      *
-     * @return Текущий пользователь
-     * @throws RuntimeException если пользователь не найден
+     * @return ID текущего пользователя
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException если пользователь не найден
+     */
+    private Long getCurrentUserId() {
+        org.springframework.security.core.Authentication authentication =
+                org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return userLookupCache.get(authentication.getName()).getId();
+    }
+
+    /**
+     * Получает ссылку на текущего пользователя без загрузки строки из таблицы users.
+     * Ссылки достаточно для фильтрации задач и привязки новых задач к владельцу.
+     *
+     * @return Ссылка на текущего пользователя
      */
     private com.example.taskmanager.model.User getCurrentUser() {
-        String username = org.springframework.security.core.context.SecurityContextHolder.getContext()
-                .getAuthentication().getName();
-        return userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
+        return userRepository.getReferenceById(getCurrentUserId());
+    }
+
+    /**
+     * Получает текущую версию задач пользователя для ETag.
+     * Не обращается к базе, если пользователь аутентифицирован через {@link UserPrincipal}.
+     *
+     * @return Непрозрачная строка версии, меняющаяся при каждом изменении задач пользователя
+     */
+    public String getTasksVersion() {
+        return taskVersionService.getVersion(getCurrentUserId());
     }
 
     /**
-     * Получает список всех задач текущего пользователя.
+     * Получает список всех задач текущего пользователя в порядке отображения.
+     * Список берется из {@link TaskListCache}, поэтому повторное чтение неизменного
+     * списка не обращается к базе; при промахе он читается проекцией в транзакции только для чтения.
+     * В режиме отложенной записи поверх него накладываются изменения, еще не записанные в базу.
      *
      * @return Список задач
      */
-    public List<Task> getAllTasks() {
-        return taskRepository.findByUser(getCurrentUser());
+    public List<TaskView> getAllTasks() {
+        Long userId = getCurrentUserId();
+        List<TaskView> tasks = taskListCache.getTasks(userId);
+        return taskWriteBehindService.isEnabled() ? taskWriteBehindService.merge(userId, tasks) : tasks;
     }
 
     /**
-     * Находит задачу по её идентификатору.
+     * Получает страницу задач текущего пользователя (keyset-пагинация).
+     *
+     * @param status  Фильтр по статусу (null — все задачи)
+     * @param sortKey Ключ сортировки
+     * @param cursor  Курсор из предыдущей страницы (null — первая страница)
+     * @param limit   Размер страницы (ограничивается {@link #MAX_PAGE_SIZE})
+     * @return Страница задач и курсор следующей страницы
+     * @throws IllegalArgumentException если курсор поврежден
+     */
+    public TaskPage getTasksPage(TaskStatus status, TaskSortKey sortKey, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        TaskCursor after = cursor == null || cursor.isBlank() ? null : TaskCursor.decode(sortKey, cursor);
+        // Фильтр и курсор считаются в базе, поэтому отложенные изменения сначала записываются туда;
+        // страница — один запрос проекции, отдельная транзакция ей не нужна
+        flushPendingWrites();
+
+        // Запрашиваем на одну задачу больше, чтобы узнать, есть ли следующая страница
+        List<TaskView> tasks = taskRepository.findPage(getCurrentUser(), status, sortKey, after, pageSize + 1);
+        if (tasks.size() <= pageSize) {
+            return new TaskPage(tasks, null);
+        }
+        List<TaskView> items = tasks.subList(0, pageSize);
+        return new TaskPage(items, TaskCursor.after(sortKey, items.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Ищет задачи текущего пользователя по заголовку и описанию.
+     *
+     * @param query Текст запроса; последнее слово может быть неполным
+     * @param limit Максимальное количество результатов (ограничивается {@link #MAX_SEARCH_RESULTS})
+     * @return Найденные задачи в порядке убывания релевантности
+     * @throws FeatureDisabledException если поиск отключен ({@code app.search.enabled=false})
+     */
+    public List<TaskView> searchTasks(String query, int limit) {
+        TaskSearchService searchService = taskSearchService.getIfAvailable();
+        if (searchService == null) {
+            throw new FeatureDisabledException("Task search is disabled");
+        }
+        List<Long> ids = searchService.search(getCurrentUserId(), query,
+                Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TaskView> tasksById = new HashMap<>();
+        for (TaskView task : taskRepository.findViewsByIdIn(ids)) {
+            tasksById.put(task.id(), task);
+        }
+        // Задача могла быть удалена после обновления индекса
+        List<TaskView> found = ids.stream().map(tasksById::get).filter(Objects::nonNull).toList();
+        if (!taskWriteBehindService.isEnabled()) {
+            return found;
+        }
+        // Результаты остаются в порядке релевантности, из очереди берутся только значения полей
+        Long userId = getCurrentUserId();
+        return found.stream().map(task -> taskWriteBehindService.merge(userId, task)).toList();
+    }
+
+    /**
+     * Получает статистику задач текущего пользователя.
+     *
+     * @return Количество задач по статусам, просроченные задачи и доля завершенных
+     */
+    public TaskStats getStats() {
+        flushPendingWrites();
+        return taskStatsService.getStats(getCurrentUserId());
+    }
+
+    /**
+     * Находит задачу текущего пользователя по её идентификатору.
+     * Одиночная задача читается как сущность: обычно она уже есть в кэше второго уровня,
+     * и обращения к базе не требуется. Чужая задача не возвращается: ответ помечается
+     * версией задач текущего пользователя, которая от чужих изменений не меняется.
      *
      * @param id Идентификатор задачи
-     * @return Optional с задачей, если она найдена
+     * @return Optional с задачей, если она найдена и принадлежит текущему пользователю
      */
-    public Optional<Task> getTaskById(Long id) {
-        return taskRepository.findById(id);
+    public Optional<TaskView> getTaskById(Long id) {
+        Long userId = getCurrentUserId();
+        Optional<TaskView> task = findOwnTask(userId, id).map(TaskView::from);
+        if (!taskWriteBehindService.isEnabled()) {
+            return task;
+        }
+        return task.map(view -> taskWriteBehindService.merge(userId, view));
     }
 
     /**
      * Создает новую задачу для текущего пользователя.
-     * Если статус не указан, устанавливается PENDING по умолчанию.
+     * Если статус не указан, устанавливается PENDING по умолчанию, а индекс сортировки — 0.
      *
-     * @param task Объект задачи для создания
+     * @param request Данные новой задачи
      * @return Сохраненная задача
      */
-    public Task createTask(Task task) {
-        task.setUser(getCurrentUser());
-        if (task.getStatus() == null) {
-            task.setStatus(TaskStatus.PENDING);
-        }
-        return taskRepository.save(task);
+    @Transactional
+    public TaskView createTask(TaskRequest request) {
+        Long userId = getCurrentUserId();
+        Task task = new Task(request.title(), request.description(),
+                request.status() != null ? request.status() : TaskStatus.PENDING);
+        task.setDueDate(request.dueDate());
+        task.setOrderIndex(request.orderIndex() != null ? request.orderIndex() : 0);
+        task.setUser(userRepository.getReferenceById(userId));
+        task.setChangeSeq(taskSyncService.nextChangeSeq(userId));
+        Task saved = taskRepository.save(task);
+        eventPublisher.publishEvent(TaskEvent.created(saved));
+        return TaskView.from(saved);
     }
 
     /**
      * Обновляет существующую задачу.
      *
-     * @param id          Идентификатор обновляемой задачи
-     * @param taskDetails Объект с новыми данными
+     * @param id      Идентификатор обновляемой задачи
+     * @param request Новые данные задачи
      * @return Обновленная задача
-     * @throws RuntimeException если задача с указанным id не найдена
-     */
-    public Task updateTask(Long id, Task taskDetails) {
-        return taskRepository.findById(id).map(task -> {
-            task.setTitle(taskDetails.getTitle());
-            task.setDescription(taskDetails.getDescription());
-            task.setDueDate(taskDetails.getDueDate());
-            if (taskDetails.getStatus() != null) {
-                task.setStatus(taskDetails.getStatus());
+     * @throws RuntimeException если задача не найдена или принадлежит другому пользователю
+     */
+    public TaskView updateTask(Long id, TaskRequest request) {
+        Long userId = getCurrentUserId();
+        // Отложенный статус, записанный позже, перезаписал бы это изменение. Сброс идет в своей
+        // транзакции, поэтому выполняется до транзакции изменения, а не внутри нее
+        flushPendingWrites();
+        return transactionTemplate.execute(status -> findOwnTask(userId, id).map(task -> {
+            TaskStatus previousStatus = task.getStatus();
+            LocalDate previousDueDate = task.getDueDate();
+            task.setTitle(request.title());
+            task.setDescription(request.description());
+            task.setDueDate(request.dueDate());
+            if (request.status() != null) {
+                task.setStatus(request.status());
             }
-            return taskRepository.save(task);
-        }).orElseThrow(() -> new RuntimeException("Task not found with id " + id));
+            task.setChangeSeq(taskSyncService.nextChangeSeq(userId));
+            Task saved = taskRepository.save(task);
+            eventPublisher.publishEvent(TaskEvent.updated(saved, previousStatus, previousDueDate));
+            return TaskView.from(saved);
+        }).orElseThrow(() -> new RuntimeException("Task not found with id " + id)));
     }
 
     /**
-     * Удаляет задачу по идентификатору.
+     * Меняет статус задачи текущего пользователя.
+     * В режиме отложенной записи статус ставится в очередь и сразу виден в ответах,
+     * а в базу записывается фоновой задачей. Владелец проверяется отдельным чтением,
+     * а ожидание {@code fsync} журнала идет вне транзакции и соединения пула не держит.
+     *
+     * @param id     Идентификатор задачи
+     * @param status Новый статус
+     * @return Задача с новым статусом
+     * @throws RuntimeException если задача не найдена или принадлежит другому пользователю
+     */
+    public TaskView updateTaskStatus(Long id, TaskStatus status) {
+        Long userId = getCurrentUserId();
+        if (taskWriteBehindService.isEnabled()) {
+            TaskView task = findOwnTask(userId, id).map(TaskView::from)
+                    .orElseThrow(() -> new RuntimeException("Task not found with id " + id));
+            taskWriteBehindService.enqueueStatus(userId, id, status);
+            return taskWriteBehindService.merge(userId, task);
+        }
+        return transactionTemplate.execute(tx -> {
+            Task task = findOwnTask(userId, id)
+                    .orElseThrow(() -> new RuntimeException("Task not found with id " + id));
+            TaskStatus previousStatus = task.getStatus();
+            task.setStatus(status);
+            task.setChangeSeq(taskSyncService.nextChangeSeq(userId));
+            Task saved = taskRepository.save(task);
+            eventPublisher.publishEvent(TaskEvent.updated(saved, previousStatus, saved.getDueDate()));
+            return TaskView.from(saved);
+        });
+    }
+
+    /**
+     * Удаляет задачу текущего пользователя по идентификатору.
+     * Удаление записывается в журнал изменений для синхронизации по дельте.
+     * Отсутствующая или чужая задача не удаляется, как если бы её не было.
      *
      * @param id Идентификатор задачи
      */
+    @Transactional
     public void deleteTask(Long id) {
-        taskRepository.deleteById(id);
+        Long userId = getCurrentUserId();
+        // Задача читается до удаления, чтобы подписчики знали её статус и срок
+        findOwnTask(userId, id).ifPresent(task -> {
+            taskSyncService.recordDeletion(task, taskSyncService.nextChangeSeq(userId));
+            taskRepository.deleteById(id);
+            eventPublisher.publishEvent(TaskEvent.deleted(task));
+        });
+    }
+
+    /**
+     * Возвращает изменения задач текущего пользователя после заданного номера изменения.
+     *
+     * @param since Последний номер изменения, известный клиенту (0 — полный список)
+     * @return Измененные задачи, ID удаленных задач и новый номер
+     */
+    public TaskChanges getChanges(long since) {
+        // Номера изменений выдаются при записи в базу, поэтому очередь сначала сбрасывается
+        flushPendingWrites();
+        return taskSyncService.getChanges(getCurrentUserId(), since);
+    }
+
+    /**
+     * Открывает поток событий задач текущего пользователя (Server-Sent Events).
+     *
+     * @return Emitter, в который будут отправляться события, или пустой Optional,
+     * если поток отключен ({@code app.stream.enabled=false})
+     */
+    public Optional<SseEmitter> openStream() {
+        TaskStreamService streamService = taskStreamService.getIfAvailable();
+        return streamService == null ? Optional.empty() : Optional.of(streamService.open(getCurrentUserId()));
+    }
+
+    /**
+     * Импортирует задачи текущего пользователя из потока JSON или CSV.
+     *
+     * @param input  Тело запроса
+     * @param format Формат данных
+     * @return Количество импортированных задач и ошибки по строкам
+     * @throws IOException если поток не удалось прочитать
+     */
+    public BulkImportResult importTasks(InputStream input, TaskFileFormat format) throws IOException {
+        Long userId = getCurrentUserId();
+        BulkImportResult result = taskTransferService.importTasks(userId, input, format);
+        if (result.imported() > 0) {
+            eventPublisher.publishEvent(TaskEvent.imported(userId));
+        }
+        return result;
+    }
+
+    /**
+     * Готовит потоковую выгрузку задач текущего пользователя.
+     * Пользователь определяется сразу, так как тело ответа пишется в другом потоке.
+     *
+     * @param format Формат данных
+     * @return Тело ответа, записывающее задачи в поток
+     */
+    public StreamingResponseBody exportTasks(TaskFileFormat format) {
+        Long userId = getCurrentUserId();
+        return output -> taskTransferService.exportTasks(userId, format, output);
     }
 
     /**
      * Обновляет порядок задач (для Drag & Drop).
+     * Все индексы записываются одним JDBC-батчем в одной транзакции;
+     * задачи других пользователей не затрагиваются. В режиме отложенной записи
+     * порядок только ставится в очередь, и база в запросе не используется.
      *
      * @param taskIds Список ID задач в новом порядке
      */
     public void updateTaskOrder(List<Long> taskIds) {
+        if (taskWriteBehindService.isEnabled()) {
+            taskWriteBehindService.enqueueOrder(getCurrentUserId(), taskIds);
+            return;
+        }
+        List<Integer> orderIndexes = new ArrayList<>(taskIds.size());
         for (int i = 0; i < taskIds.size(); i++) {
-            Long taskId = taskIds.get(i);
-            Optional<Task> taskOpt = taskRepository.findById(taskId);
-            if (taskOpt.isPresent()) {
-                Task task = taskOpt.get();
-                task.setOrderIndex(i);
-                taskRepository.save(task);
+            orderIndexes.add(i * ORDER_GAP);
+        }
+        com.example.taskmanager.model.User user = getCurrentUser();
+        transactionTemplate.executeWithoutResult(tx -> {
+            taskRepository.updateOrderIndexes(user, taskIds, orderIndexes,
+                    taskSyncService.nextChangeSeq(user.getId()));
+            eventPublisher.publishEvent(TaskEvent.reordered(user.getId()));
+        });
+    }
+
+    /**
+     * Перемещает одну задачу между двумя соседями.
+     * Новый индекс берется из промежутка между индексами соседей, поэтому обычно
+     * обновляется одна строка. Если промежуток исчерпан, список пользователя
+     * перенумеровывается с шагом {@link #ORDER_GAP}.
+     * <p>
+     * В режиме отложенной записи новый порядок вычисляется из списка с учетом ожидающих
+     * изменений и ставится в очередь целиком, поэтому серия перемещений схлопывается в одну запись.
+     * Список читается из {@link TaskListCache}, а очередь пополняется вне транзакции.
+     *
+     * @param taskId     ID перемещаемой задачи
+     * @param previousId ID задачи перед новой позицией (null — в начало списка)
+     * @param nextId     ID задачи после новой позиции (null — в конец списка)
+     * @throws RuntimeException если одна из задач не найдена
+     */
+    public void moveTask(Long taskId, Long previousId, Long nextId) {
+        if (taskWriteBehindService.isEnabled()) {
+            List<Long> ids = new ArrayList<>(getAllTasks().stream().map(TaskView::id).toList());
+            for (Long id : Arrays.asList(taskId, previousId, nextId)) {
+                if (id != null && !ids.contains(id)) {
+                    throw new RuntimeException("Task not found with id " + id);
+                }
+            }
+            moveWithin(ids, taskId, previousId, nextId);
+            taskWriteBehindService.enqueueOrder(getCurrentUserId(), ids);
+            return;
+        }
+        com.example.taskmanager.model.User user = getCurrentUser();
+        transactionTemplate.executeWithoutResult(tx -> moveWithinDatabase(user, taskId, previousId, nextId));
+    }
+
+    private void moveWithinDatabase(com.example.taskmanager.model.User user, Long taskId, Long previousId,
+            Long nextId) {
+        orderIndexOf(user, taskId); // Проверяем, что задача принадлежит пользователю
+
+        Long orderIndex = orderIndexBetween(
+                previousId != null ? orderIndexOf(user, previousId) : null,
+                nextId != null ? orderIndexOf(user, nextId) : null);
+        long changeSeq = taskSyncService.nextChangeSeq(user.getId());
+        if (orderIndex != null) {
+            taskRepository.updateOrderIndexes(user, List.of(taskId), List.of(orderIndex.intValue()), changeSeq);
+            eventPublisher.publishEvent(TaskEvent.reordered(user.getId()));
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(taskRepository.findOrderedIds(user));
+        moveWithin(ids, taskId, previousId, nextId);
+        List<Integer> orderIndexes = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            orderIndexes.add(i * ORDER_GAP);
+        }
+        taskRepository.updateOrderIndexes(user, ids, orderIndexes, changeSeq);
+        eventPublisher.publishEvent(TaskEvent.reordered(user.getId()));
+    }
+
+    /**
+     * Находит задачу, только если она принадлежит пользователю.
+     */
+    private Optional<Task> findOwnTask(Long userId, Long id) {
+        return taskRepository.findById(id)
+                .filter(found -> found.getUser() != null && userId.equals(found.getUser().getId()));
+    }
+
+    /**
+     * Записывает в базу отложенные изменения текущего пользователя, если они есть.
+     * Вызывается вне транзакции: сброс фиксируется в собственной транзакции.
+     */
+    private void flushPendingWrites() {
+        if (taskWriteBehindService.isEnabled()) {
+            taskWriteBehindService.flush(getCurrentUserId());
+        }
+    }
+
+    /**
+     * Переставляет задачу в списке ID на место между соседями.
+     */
+    private static void moveWithin(List<Long> ids, Long taskId, Long previousId, Long nextId) {
+        ids.remove(taskId);
+        int position = previousId != null ? ids.indexOf(previousId) + 1
+                : nextId != null ? ids.indexOf(nextId) : 0;
+        ids.add(position, taskId);
+    }
+
+    private long orderIndexOf(com.example.taskmanager.model.User user, Long taskId) {
+        return taskRepository.findOrderIndex(taskId, user)
+                .orElseThrow(() -> new RuntimeException("Task not found with id " + taskId));
+    }
+
+    /**
+     * Вычисляет индекс между соседями или возвращает null, если свободного
+     * значения нет и требуется перенумерация.
+     */
+    private static Long orderIndexBetween(Long previous, Long next) {
+        long candidate;
+        if (previous != null && next != null) {
+            if (next - previous < 2) {
+                return null;
             }
+            candidate = previous + (next - previous) / 2;
+        } else if (previous != null) {
+            candidate = previous + ORDER_GAP;
+        } else if (next != null) {
+            candidate = next - ORDER_GAP;
+        } else {
+            candidate = 0;
         }
+        return candidate < Integer.MIN_VALUE || candidate > Integer.MAX_VALUE ? null : candidate;
     }
 }
@@ -0,0 +1,186 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.repository.TaskRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Сервис статистики задач.
+ * Хранит счетчики по статусам и срокам для каждого пользователя и обновляет их
+ * по событиям {@link TaskEvent}, не перечитывая список задач. Счетчики загружаются
+ * запросом GROUP BY при первом обращении и периодически сверяются с базой.
+ * <p>
+ * Счетчики видят только изменения, прошедшие через этот экземпляр приложения. Если
+ * с базой работают несколько экземпляров, кэш отключается ({@code app.stats.cache-enabled=false})
+ * и статистика каждый раз считается запросом.
+ */
+@Slf4j
+@Service
+public class TaskStatsService {
+
+    private final TaskRepository taskRepository;
+    private final Clock clock;
+    private final boolean cacheEnabled;
+    private final Cache<Long, Counters> counters;
+
+    public TaskStatsService(TaskRepository taskRepository, Clock clock,
+            @Value("${app.stats.cache-enabled:true}") boolean cacheEnabled,
+            @Value("${app.stats.max-users:10000}") long maxUsers,
+            @Value("${app.stats.idle-ttl:30m}") Duration idleTtl) {
+        this.taskRepository = taskRepository;
+        this.clock = clock;
+        this.cacheEnabled = cacheEnabled;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleTtl)
+                .build();
+    }
+
+    /**
+     * Возвращает статистику задач пользователя.
+     *
+     * @param userId ID пользователя
+     * @return Статистика
+     */
+    public TaskStats getStats(Long userId) {
+        Counters userCounters = cacheEnabled ? counters.get(userId, this::load) : load(userId);
+        return userCounters.snapshot(LocalDate.now(clock));
+    }
+
+    /**
+     * Применяет изменение задачи к счетчикам пользователя, если они уже загружены.
+     * Срабатывает после фиксации транзакции, чтобы откаченные изменения не попадали в счетчики.
+     * Изменение применяется внутри {@code compute}: если счетчики пользователя в этот момент
+     * загружаются или сверяются с базой, оно ждет окончания и не теряется.
+     *
+     * @param event Событие изменения задачи
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        switch (event.type()) {
+            case CREATED, DELETED, UPDATED -> counters.asMap().compute(event.userId(),
+                    (userId, userCounters) -> userCounters == null ? null : apply(userCounters, event));
+            // После массового импорта дешевле перечитать счетчики одним запросом
+            case IMPORTED -> invalidate(event.userId());
+            default -> {
+                // Порядок задач на статистику не влияет
+            }
+        }
+    }
+
+    private static Counters apply(Counters userCounters, TaskEvent event) {
+        switch (event.type()) {
+            case CREATED -> userCounters.add(event.task().getStatus(), event.task().getDueDate(), 1);
+            case DELETED -> userCounters.add(event.task().getStatus(), event.task().getDueDate(), -1);
+            default -> {
+                userCounters.add(event.previousStatus(), event.previousDueDate(), -1);
+                userCounters.add(event.task().getStatus(), event.task().getDueDate(), 1);
+            }
+        }
+        return userCounters;
+    }
+
+    /**
+     * Сбрасывает счетчики пользователя; при следующем обращении они будут загружены заново.
+     *
+     * @param userId ID пользователя
+     */
+    public void invalidate(Long userId) {
+        counters.invalidate(userId);
+    }
+
+    /**
+     * Периодически пересчитывает загруженные счетчики запросом GROUP BY,
+     * устраняя расхождения от параллельных изменений.
+     */
+    @Scheduled(fixedDelayString = "${app.stats.reconcile-interval:PT5M}",
+            initialDelayString = "${app.stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        for (Long userId : counters.asMap().keySet()) {
+            // Пересчет внутри computeIfPresent: изменения, пришедшие во время запроса, применяются после него
+            counters.asMap().computeIfPresent(userId, (id, previous) -> {
+                Counters fresh = load(id);
+                if (!previous.sameAs(fresh)) {
+                    log.debug("Task stats for user {} drifted, reconciled", id);
+                }
+                return fresh;
+            });
+        }
+    }
+
+    private Counters load(Long userId) {
+        Counters loaded = new Counters();
+        for (TaskRepository.StatusCount row : taskRepository.countByStatus(userId)) {
+            loaded.byStatus.merge(statusOf(row.getStatus()), row.getTotal(), Long::sum);
+        }
+        for (TaskRepository.DueDateCount row : taskRepository.countOpenByDueDate(userId, TaskStatus.COMPLETED)) {
+            loaded.openByDueDate.put(row.getDueDate(), row.getTotal());
+        }
+        return loaded;
+    }
+
+    /**
+     * Задачи без статуса (от старых версий) учитываются как PENDING, как и при создании.
+     */
+    private static TaskStatus statusOf(TaskStatus status) {
+        return status == null ? TaskStatus.PENDING : status;
+    }
+
+    /**
+     * Счетчики одного пользователя: количество задач по статусам и количество
+     * незавершенных задач по срокам (для подсчета просроченных).
+     */
+    private static final class Counters {
+
+        private final EnumMap<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+        private final NavigableMap<LocalDate, Long> openByDueDate = new TreeMap<>();
+
+        Counters() {
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, 0L);
+            }
+        }
+
+        synchronized void add(TaskStatus status, LocalDate dueDate, long delta) {
+            TaskStatus effective = statusOf(status);
+            byStatus.merge(effective, delta, Long::sum);
+            if (dueDate != null && effective != TaskStatus.COMPLETED) {
+                openByDueDate.merge(dueDate, delta, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+
+        synchronized TaskStats snapshot(LocalDate today) {
+            long total = 0;
+            for (long count : byStatus.values()) {
+                total += count;
+            }
+            long overdue = 0;
+            for (long count : openByDueDate.headMap(today, false).values()) {
+                overdue += count;
+            }
+            long completed = byStatus.get(TaskStatus.COMPLETED);
+            double completionRate = total == 0 ? 0.0 : (double) completed / total;
+            return new TaskStats(total, Map.copyOf(byStatus), overdue, completionRate);
+        }
+
+        synchronized boolean sameAs(Counters other) {
+            return byStatus.equals(other.byStatus) && openByDueDate.equals(other.openByDueDate);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.event.TaskEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сервис потоковой доставки событий задач по Server-Sent Events.
+ * <p>
+ * Соединение — это асинхронный запрос сервлета ({@link SseEmitter}), поэтому
+ * простаивающие соединения не занимают потоков. События {@link TaskEvent} сериализуются
+ * один раз и кладутся в ограниченный буфер каждого соединения пользователя; запись
+ * в сокеты выполняет небольшой общий пул потоков. Если клиент не успевает читать
+ * и буфер переполняется, очередь очищается, клиенту отправляется событие {@code resync}
+ * и соединение закрывается: после переподключения клиент перечитывает список задач.
+ * <p>
+ * Запись в сокет блокирующая, и клиент с заполненным окном TCP удерживает поток пула до
+ * таймаута записи контейнера. Поэтому heartbeat заодно ищет записи дольше
+ * {@code app.stream.send-timeout}: такие соединения закрываются, а пул на время зависшей
+ * записи получает по дополнительному потоку, чтобы остальные клиенты не ждали.
+ * <p>
+ * Соединения получают только события своего экземпляра, поэтому при нескольких
+ * экземплярах на одной базе сервис отключается ({@code app.stream.enabled=false}).
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.stream.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskStreamService {
+
+    static final String TASK_EVENT = "task";
+    static final String RESYNC_EVENT = "resync";
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+    private static final Set<DataWithMediaType> RESYNC =
+            SseEmitter.event().name(RESYNC_EVENT).data("{}", MediaType.APPLICATION_JSON).build();
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final long sendTimeoutNanos;
+    private final Executor dispatcher;
+    private final int dispatchThreads;
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    /**
+     * Соединения, в которые сейчас идет запись.
+     */
+    private final Set<Connection> sending = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public TaskStreamService(ObjectMapper objectMapper,
+            @Value("${app.stream.buffer-size:64}") int bufferSize,
+            @Value("${app.stream.timeout:30m}") Duration timeout,
+            @Value("${app.stream.send-timeout:10s}") Duration sendTimeout,
+            @Value("${app.stream.dispatch-threads:2}") int dispatchThreads) {
+        this(objectMapper, bufferSize, timeout, sendTimeout, newDispatcher(dispatchThreads));
+    }
+
+    TaskStreamService(ObjectMapper objectMapper, int bufferSize, Duration timeout, Duration sendTimeout,
+            Executor dispatcher) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.dispatcher = dispatcher;
+        this.dispatchThreads = dispatcher instanceof ThreadPoolExecutor pool ? pool.getCorePoolSize() : 0;
+    }
+
+    private static ExecutorService newDispatcher(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "task-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Открывает поток событий для пользователя.
+     * По истечении таймаута соединение закрывается, и браузер переподключается сам.
+     *
+     * @param userId ID пользователя
+     * @return Emitter, который контроллер возвращает как тело ответа
+     */
+    public SseEmitter open(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Connection connection = new Connection(userId, emitter);
+        connections.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        connectionCount.incrementAndGet();
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(error -> connection.close());
+        // Первое сообщение сразу отправляет заголовки ответа клиенту
+        connection.offer(HEARTBEAT);
+        return emitter;
+    }
+
+    /**
+     * Рассылает событие всем открытым соединениям владельца задачи.
+     * Срабатывает после фиксации транзакции, чтобы клиенты не увидели откаченных изменений.
+     *
+     * @param event Событие изменения задачи
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        Set<Connection> userConnections = connections.get(event.userId());
+        if (userConnections == null || userConnections.isEmpty()) {
+            return;
+        }
+        TaskView task = event.task() == null ? null : TaskView.from(event.task());
+        Set<DataWithMediaType> message;
+        try {
+            message = SseEmitter.event()
+                    .name(TASK_EVENT)
+                    .data(objectMapper.writeValueAsString(new Payload(event.type(), event.taskId(), task)),
+                            MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize task event {} for streaming", event.type(), e);
+            return;
+        }
+        for (Connection connection : userConnections) {
+            connection.offer(message);
+        }
+    }
+
+    /**
+     * Периодически отправляет комментарий во все соединения, чтобы прокси не закрывали
+     * простаивающие соединения, а оборванные обнаруживались при записи.
+     * Перед этим закрывает соединения с зависшей записью.
+     */
+    @Scheduled(fixedRateString = "${app.stream.heartbeat-interval:PT15S}",
+            initialDelayString = "${app.stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        dropStalledConsumers();
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                connection.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Закрывает соединения, запись в которые идет дольше send-timeout, и подстраивает
+     * размер пула: по одному дополнительному потоку на каждую зависшую запись. Когда
+     * запись завершится (или контейнер оборвет её по таймауту), пул возвращается к исходному размеру.
+     */
+    private void dropStalledConsumers() {
+        long now = System.nanoTime();
+        int stalled = 0;
+        for (Connection connection : sending) {
+            if (now - connection.sendStartedAt > sendTimeoutNanos) {
+                stalled++;
+                connection.abandon();
+            }
+        }
+        if (dispatcher instanceof ThreadPoolExecutor pool) {
+            int size = dispatchThreads + stalled;
+            // Ядро не может быть больше максимума, поэтому порядок зависит от направления
+            if (size > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(size);
+                pool.setCorePoolSize(size);
+            } else if (size < pool.getCorePoolSize()) {
+                pool.setCorePoolSize(size);
+                pool.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    /**
+     * @return Количество открытых соединений
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Данные события {@code task}. Для REORDERED и IMPORTED задача не передается:
+     * клиенту нужно перечитать список или запросить изменения.
+     */
+    record Payload(TaskEvent.Type type, Long taskId, TaskView task) {
+    }
+
+    /**
+     * Одно SSE-соединение с ограниченным буфером исходящих сообщений.
+     * Буфер заполняется потоками, публикующими события, а опустошается одной
+     * задачей в пуле dispatcher, поэтому записи в один emitter не пересекаются.
+     */
+    private final class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private boolean overflowed;
+        private boolean stalled;
+        private boolean closed;
+
+        /**
+         * Время начала текущей записи ({@link System#nanoTime()}); имеет смысл, пока соединение в {@code sending}.
+         */
+        private volatile long sendStartedAt;
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> message) {
+            synchronized (this) {
+                if (closed || overflowed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    // Клиент не успевает читать: вместо накопленных событий он получит resync
+                    overflowed = true;
+                    buffer.clear();
+                    buffer.add(RESYNC);
+                } else {
+                    buffer.add(message);
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            dispatcher.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Set<DataWithMediaType> message;
+                boolean finish;
+                synchronized (this) {
+                    message = buffer.poll();
+                    if (message == null) {
+                        draining = false;
+                        return;
+                    }
+                    finish = overflowed && buffer.isEmpty();
+                }
+                sendStartedAt = System.nanoTime();
+                sending.add(this);
+                try {
+                    emitter.send(message);
+                    if (finish) {
+                        log.debug("Dropping slow task stream consumer for user {}", userId);
+                    }
+                    if (finish || isStalled()) {
+                        emitter.complete();
+                        close();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Клиент отключился или emitter уже завершен
+                    emitter.completeWithError(e);
+                    close();
+                } finally {
+                    sending.remove(this);
+                }
+            }
+        }
+
+        /**
+         * Закрывает соединение с зависшей записью. Emitter завершается потоком, который
+         * выполняет запись, когда она вернет управление: из другого потока его не завершить,
+         * пока запись держит emitter.
+         */
+        void abandon() {
+            synchronized (this) {
+                if (stalled) {
+                    return;
+                }
+                stalled = true;
+            }
+            log.debug("Dropping stalled task stream consumer for user {}", userId);
+            close();
+        }
+
+        private synchronized boolean isStalled() {
+            return stalled;
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                buffer.clear();
+            }
+            connectionCount.decrementAndGet();
+            connections.computeIfPresent(userId, (id, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskChanges;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskTombstone;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.repository.TaskTombstoneRepository;
+import com.example.taskmanager.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Сервис синхронизации задач по дельте.
+ * Каждое изменение задач пользователя получает номер из счетчика в строке users;
+ * задачи хранят номер своего последнего изменения, удаления записываются в
+ * {@link TaskTombstone}. Клиент передает последний известный номер и получает
+ * только то, что изменилось после него.
+ * <p>
+ * Записи об удалениях старше срока хранения периодически удаляются. Для пользователя
+ * запоминается наибольший номер удаленной записи: клиент с более старым номером
+ * получает полный список задач вместо дельты.
+ */
+@Slf4j
+@Service
+public class TaskSyncService {
+
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final TaskTombstoneRepository tombstoneRepository;
+    private final Clock clock;
+    private final Duration tombstoneRetention;
+
+    public TaskSyncService(TaskRepository taskRepository, UserRepository userRepository,
+            TaskTombstoneRepository tombstoneRepository, Clock clock,
+            @Value("${app.sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.clock = clock;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Выдает следующий номер изменения задач пользователя.
+     * Строка пользователя остается заблокированной до конца транзакции, поэтому
+     * изменения одного пользователя фиксируются строго в порядке номеров и клиент,
+     * прочитавший номер N, уже видит все изменения с номерами до N включительно.
+     *
+     * @param userId ID пользователя
+     * @return Номер изменения для всех задач, изменяемых в текущей транзакции
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long nextChangeSeq(Long userId) {
+        userRepository.incrementChangeSeq(userId);
+        return userRepository.findChangeSeq(userId);
+    }
+
+    /**
+     * Записывает удаление задачи в журнал изменений.
+     *
+     * @param task      Удаляемая задача
+     * @param changeSeq Номер изменения, полученный от {@link #nextChangeSeq(Long)}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeletion(Task task, long changeSeq) {
+        tombstoneRepository.save(new TaskTombstone(task.getId(), task.getUser().getId(), changeSeq,
+                LocalDateTime.now(clock)));
+    }
+
+    /**
+     * Возвращает изменения задач пользователя после номера since.
+     * Если since равен нулю, неизвестен серверу или старше компактированных удалений,
+     * возвращается полный список задач.
+     *
+     * @param userId ID пользователя
+     * @param since  Последний номер изменения, известный клиенту
+     * @return Измененные задачи, ID удаленных задач и новый номер
+     */
+    @Transactional(readOnly = true)
+    public TaskChanges getChanges(Long userId, long since) {
+        // Номер читается первым: всё, что зафиксировано позже, получит больший номер
+        // и попадет в следующую дельту
+        long current = userRepository.findChangeSeq(userId);
+        if (since <= 0 || since > current || since < userRepository.findTombstoneFloor(userId)) {
+            return new TaskChanges(current, true, taskRepository.findViewsByUserId(userId), List.of());
+        }
+        return new TaskChanges(current, false,
+                taskRepository.findChanged(userId, since, current),
+                tombstoneRepository.findDeletedTaskIds(userId, since, current));
+    }
+
+    /**
+     * Удаляет записи об удалениях старше срока хранения.
+     */
+    @Scheduled(fixedDelayString = "${app.sync.compaction-interval:PT1H}",
+            initialDelayString = "${app.sync.compaction-interval:PT1H}")
+    @Transactional
+    public void compact() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(tombstoneRetention);
+        for (TaskTombstoneRepository.UserFloor floor : tombstoneRepository.findFloorsDeletedBefore(cutoff)) {
+            userRepository.raiseTombstoneFloor(floor.getUserId(), floor.getChangeSeq());
+        }
+        int removed = tombstoneRepository.deleteByDeletedAtBefore(cutoff);
+        if (removed > 0) {
+            log.debug("Compacted {} task tombstones deleted before {}", removed, cutoff);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.BulkImportResult;
+import com.example.taskmanager.dto.TaskFileFormat;
+import com.example.taskmanager.dto.TaskRequest;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Сервис массового импорта и экспорта задач.
+ * Импорт читает тело запроса потоково (Jackson streaming API или построчно для CSV)
+ * и сохраняет задачи порциями: каждая порция вставляется JDBC-батчами Hibernate
+ * (hibernate.jdbc.batch_size) в отдельной транзакции; экспорт выгружает задачи курсором,
+ * не держа весь список в памяти.
+ */
+@Service
+public class TaskTransferService {
+
+    /**
+     * Максимальное количество ошибок, возвращаемых клиенту.
+     */
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String[] CSV_COLUMNS =
+            {"id", "title", "description", "status", "dueDate", "orderIndex", "createdAt"};
+
+    private final TaskRepository taskRepository;
+    private final TaskSyncService taskSyncService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TaskTransferService(TaskRepository taskRepository, TaskSyncService taskSyncService,
+            ObjectMapper objectMapper, Validator validator, PlatformTransactionManager transactionManager,
+            @Value("${app.bulk.batch-size:500}") int batchSize) {
+        this.taskRepository = taskRepository;
+        this.taskSyncService = taskSyncService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Импортирует задачи пользователя из потока.
+     * Некорректные строки пропускаются и попадают в список ошибок, остальные сохраняются.
+     *
+     * @param userId ID владельца задач
+     * @param input  Тело запроса
+     * @param format Формат данных
+     * @return Количество импортированных задач и ошибки по строкам
+     * @throws IOException если поток не удалось прочитать или он синтаксически поврежден
+     */
+    public BulkImportResult importTasks(Long userId, InputStream input, TaskFileFormat format) throws IOException {
+        ImportSession session = new ImportSession(userId);
+        if (format == TaskFileFormat.CSV) {
+            readCsv(input, session);
+        } else {
+            readJson(input, session);
+        }
+        session.flush();
+        return new BulkImportResult(session.imported, session.failed, session.errors);
+    }
+
+    /**
+     * Выгружает все задачи пользователя в поток в порядке отображения.
+     *
+     * @param userId ID владельца задач
+     * @param format Формат данных
+     * @param output Поток ответа
+     */
+    public void exportTasks(Long userId, TaskFileFormat format, OutputStream output) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Task> tasks = taskRepository.streamByUserId(userId)) {
+                if (format == TaskFileFormat.CSV) {
+                    writeCsv(tasks, output);
+                } else {
+                    writeJson(tasks, output);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Export failed", e);
+            }
+        });
+    }
+
+    private void readJson(InputStream input, ImportSession session) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of tasks");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                // Каждый элемент читается в дерево целиком, поэтому ошибка в значении
+                // не сбивает парсер с позиции следующего элемента
+                JsonNode node = parser.readValueAsTree();
+                session.row++;
+                try {
+                    // Служебные поля из выгрузки (id, createdAt, changeSeq) в TaskRequest не попадают:
+                    // задачи всегда создаются заново
+                    TaskRequest request = objectMapper.treeToValue(node, TaskRequest.class);
+                    Task task = new Task(request.title(), request.description(), request.status());
+                    task.setDueDate(request.dueDate());
+                    task.setOrderIndex(request.orderIndex());
+                    session.accept(task);
+                } catch (JsonProcessingException e) {
+                    session.reject("Invalid value: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    private void readCsv(InputStream input, ImportSession session) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<String> header = TaskCsv.readRecord(reader);
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+        if (!columns.containsKey("title")) {
+            throw new IllegalArgumentException("CSV header must contain a 'title' column");
+        }
+
+        List<String> record;
+        while ((record = TaskCsv.readRecord(reader)) != null) {
+            session.row++;
+            try {
+                Task task = new Task();
+                task.setTitle(column(record, columns, "title"));
+                task.setDescription(column(record, columns, "description"));
+                String status = column(record, columns, "status");
+                task.setStatus(status == null ? null : TaskStatus.valueOf(status));
+                String dueDate = column(record, columns, "dueDate");
+                task.setDueDate(dueDate == null ? null : LocalDate.parse(dueDate));
+                String orderIndex = column(record, columns, "orderIndex");
+                task.setOrderIndex(orderIndex == null ? 0 : Integer.valueOf(orderIndex));
+                session.accept(task);
+            } catch (RuntimeException e) {
+                session.reject("Invalid value: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    private void writeJson(Stream<Task> tasks, OutputStream output) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.writeStartArray();
+            for (Task task : (Iterable<Task>) tasks::iterator) {
+                objectMapper.writeValue(generator, task);
+                entityManager.detach(task);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeCsv(Stream<Task> tasks, OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        TaskCsv.writeRecord(writer, (Object[]) CSV_COLUMNS);
+        for (Task task : (Iterable<Task>) tasks::iterator) {
+            TaskCsv.writeRecord(writer, task.getId(), task.getTitle(), task.getDescription(), task.getStatus(),
+                    task.getDueDate(), task.getOrderIndex(), task.getCreatedAt());
+            entityManager.detach(task);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Состояние одного импорта: текущий батч, счетчики и ошибки.
+     */
+    private final class ImportSession {
+
+        private final Long userId;
+        private final List<Task> batch = new ArrayList<>(batchSize);
+        private final List<BulkImportResult.RowError> errors = new ArrayList<>();
+        private int row;
+        private int imported;
+        private int failed;
+
+        ImportSession(Long userId) {
+            this.userId = userId;
+        }
+
+        void accept(Task task) {
+            Set<ConstraintViolation<Task>> violations = validator.validate(task);
+            if (!violations.isEmpty()) {
+                reject(violations.iterator().next().getMessage());
+                return;
+            }
+            if (task.getStatus() == null) {
+                task.setStatus(TaskStatus.PENDING);
+            }
+            if (task.getOrderIndex() == null) {
+                task.setOrderIndex(0);
+            }
+            batch.add(task);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkImportResult.RowError(row, message));
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            // Каждая порция — отдельная транзакция: уже сохраненные порции не откатываются
+            transactionTemplate.executeWithoutResult(status -> {
+                User owner = entityManager.getReference(User.class, userId);
+                long changeSeq = taskSyncService.nextChangeSeq(userId);
+                for (Task task : batch) {
+                    task.setUser(owner);
+                    task.setChangeSeq(changeSeq);
+                    entityManager.persist(task);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            imported += batch.size();
+            batch.clear();
+        }
+    }
+}
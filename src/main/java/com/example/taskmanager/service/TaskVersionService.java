@@ -0,0 +1,88 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сервис версий списков задач.
+ * Хранит в памяти номер версии задач каждого пользователя и меняет его при каждом
+ * изменении, о котором сообщает {@link TaskEvent}. Версия служит основой ETag,
+ * поэтому проверить актуальность ответа клиента можно без обращения к базе.
+ * <p>
+ * Номера выдаются из одного общего счетчика, так что одно значение никогда не
+ * достается двум пользователям или двум состояниям одного пользователя. Если
+ * пользователь вытеснен из кэша, он просто получает новый номер. К номеру добавляется
+ * случайная метка запуска приложения, поэтому после перезапуска все прежние ETag
+ * становятся недействительными.
+ * <p>
+ * Счетчик в памяти видит только изменения, прошедшие через этот экземпляр. Когда
+ * несколько экземпляров работают с одной базой ({@code app.task-versions.shared=true}),
+ * версия читается из {@code users.change_seq}: этот номер увеличивает каждое изменение
+ * задач пользователя на любом экземпляре.
+ */
+@Service
+public class TaskVersionService {
+
+    private final UserRepository userRepository;
+    private final boolean shared;
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<Long, Long> versions;
+
+    public TaskVersionService(UserRepository userRepository,
+            @Value("${app.task-versions.shared:false}") boolean shared,
+            @Value("${app.task-versions.max-users:100000}") long maxUsers) {
+        this.userRepository = userRepository;
+        this.shared = shared;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    /**
+     * Возвращает текущую версию задач пользователя.
+     * Версию нужно получать до чтения данных: тогда изменение, зафиксированное
+     * между двумя чтениями, приведет к устаревшей версии, а не к устаревшим данным под новой версией.
+     *
+     * @param userId ID пользователя
+     * @return Непрозрачная строка версии
+     */
+    public String getVersion(Long userId) {
+        if (shared) {
+            // Номера изменений у каждого пользователя свои, поэтому к ним добавляется ID пользователя
+            return userId + "." + userRepository.findChangeSeq(userId);
+        }
+        return epoch + "-" + versions.get(userId, id -> sequence.incrementAndGet());
+    }
+
+    /**
+     * Выдает пользователю новую версию после любого изменения его задач.
+     * Срабатывает после фиксации транзакции, чтобы новая версия не указывала на незафиксированные данные.
+     *
+     * @param event Событие изменения задачи
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskEvent(TaskEvent event) {
+        touch(event.userId());
+    }
+
+    /**
+     * Выдает пользователю новую версию, когда его список меняется без события
+     * {@link TaskEvent}, например при записи в очередь отложенной записи.
+     *
+     * @param userId ID пользователя
+     */
+    public void touch(Long userId) {
+        if (!shared) {
+            versions.put(userId, sequence.incrementAndGet());
+        }
+    }
+}
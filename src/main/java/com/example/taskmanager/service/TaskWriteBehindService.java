@@ -0,0 +1,613 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.repository.UserRepository;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Очередь отложенной записи (write-behind) для перестановки задач и смены статуса.
+ * <p>
+ * В этом режиме запрос подтверждается, как только изменение дописано в локальный журнал
+ * (с {@code fsync}), а в базу оно попадает позже. Строки дописываются под монитором сервиса,
+ * а {@code fsync} выполняется вне его и одним вызовом покрывает все строки, дописанные к
+ * этому моменту (групповая фиксация): параллельные запросы ждут одного сброса на диск,
+ * а не выстраиваются в очередь за монитором. Фоновая задача раз в
+ * {@code app.write-behind.flush-interval} записывает накопленные изменения пачками
+ * пользователей, по одной транзакции на пачку. Изменения одного пользователя схлопываются:
+ * из нескольких перестановок записывается только последняя, из нескольких смен статуса
+ * задачи — последний статус. Чтения через {@link #merge(Long, List)} видят еще не записанные
+ * изменения поверх данных из базы, а версия ETag меняется сразу при постановке в очередь.
+ * Чтения, которые нельзя дополнить из очереди (страницы с фильтром, дельта, статистика),
+ * сначала вызывают {@link #flush(Long)}.
+ * <p>
+ * Журнал — текстовый файл, по одной JSON-записи на строку. После каждого успешного сброса он
+ * переписывается и содержит только то, что еще не записано. При запуске журнал читается заново,
+ * а его записи сбрасываются в базу; оборванная при аварии последняя строка пропускается —
+ * она не была подтверждена клиенту. Повторная запись уже сброшенного изменения безопасна.
+ * <p>
+ * Очередь и журнал локальны для узла, поэтому режим рассчитан на один экземпляр приложения.
+ */
+@Slf4j
+@Service
+public class TaskWriteBehindService implements MeterBinder {
+
+    private static final Comparator<TaskView> DISPLAY_ORDER =
+            Comparator.comparing(TaskView::orderIndex).thenComparing(TaskView::id);
+
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final TaskSyncService taskSyncService;
+    private final TaskVersionService taskVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path journalPath;
+    private final boolean fsync;
+    private final int batchSize;
+
+    /**
+     * Не записанные в базу изменения по пользователям. Доступ — под монитором сервиса,
+     * под ним же дописывается журнал, поэтому порядок строк журнала совпадает с порядком изменений.
+     */
+    private final Map<Long, PendingWrites> pending = new HashMap<>();
+    private long sequence;
+    private FileChannel journal;
+
+    /**
+     * Число строк, дописанных в журнал, и число строк, уже сброшенных на диск.
+     * Пока один поток выполняет {@code fsync} ({@code forcing}), остальные ждут на мониторе сервиса.
+     */
+    private long appended;
+    private long durable;
+    private boolean forcing;
+
+    /**
+     * Сброс по расписанию и сброс перед синхронной записью не выполняются одновременно.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public TaskWriteBehindService(TaskRepository taskRepository, UserRepository userRepository,
+            TaskSyncService taskSyncService, TaskVersionService taskVersionService,
+            ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.write-behind.journal:${app.data-dir:./data}/write-behind.journal}") String journal,
+            @Value("${app.write-behind.fsync:true}") boolean fsync,
+            @Value("${app.write-behind.batch-size:100}") int batchSize) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.taskSyncService = taskSyncService;
+        this.taskVersionService = taskVersionService;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Сброс всегда фиксируется отдельно, даже если по ошибке вызван из чужой транзакции
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.journalPath = Path.of(journal);
+        this.fsync = fsync;
+        this.batchSize = batchSize;
+        if (enabled) {
+            openJournal();
+        }
+    }
+
+    /**
+     * @return true, если перестановки и смены статуса записываются в базу отложенно
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит в очередь новый порядок задач пользователя; заменяет порядок, еще не записанный в базу.
+     * При записи задачи получают индексы с шагом {@link TaskService#ORDER_GAP}, чужие ID игнорируются.
+     *
+     * @param userId  ID пользователя
+     * @param taskIds ID задач в новом порядке
+     */
+    public void enqueueOrder(Long userId, List<Long> taskIds) {
+        submit(new JournalEntry(JournalEntry.Type.ORDER, userId, null, null, List.copyOf(taskIds)));
+    }
+
+    /**
+     * Ставит в очередь новый статус задачи; заменяет статус, еще не записанный в базу.
+     *
+     * @param userId ID владельца задачи
+     * @param taskId ID задачи
+     * @param status Новый статус
+     */
+    public void enqueueStatus(Long userId, Long taskId, TaskStatus status) {
+        submit(new JournalEntry(JournalEntry.Type.STATUS, userId, taskId, status, null));
+    }
+
+    /**
+     * Накладывает не записанные изменения пользователя на список задач из базы.
+     *
+     * @param userId ID пользователя
+     * @param tasks  Задачи в порядке отображения
+     * @return Задачи с ожидающими статусами и индексами, в новом порядке отображения
+     */
+    public List<TaskView> merge(Long userId, List<TaskView> tasks) {
+        List<Long> order;
+        Map<Long, TaskStatus> statuses;
+        synchronized (this) {
+            PendingWrites writes = pending.get(userId);
+            if (writes == null) {
+                return tasks;
+            }
+            order = writes.order == null ? null : writes.order.value();
+            statuses = writes.statusValues();
+        }
+        Map<Long, Integer> orderIndexes = orderIndexesOf(order);
+        List<TaskView> merged = new ArrayList<>(tasks.size());
+        for (TaskView task : tasks) {
+            merged.add(overlay(task, orderIndexes, statuses));
+        }
+        if (!orderIndexes.isEmpty()) {
+            merged.sort(DISPLAY_ORDER);
+        }
+        return List.copyOf(merged);
+    }
+
+    /**
+     * Накладывает не записанные изменения пользователя на одну задачу.
+     *
+     * @param userId ID владельца задачи
+     * @param task   Задача из базы
+     * @return Задача с ожидающими статусом и индексом
+     */
+    public TaskView merge(Long userId, TaskView task) {
+        List<Long> order;
+        Map<Long, TaskStatus> statuses;
+        synchronized (this) {
+            PendingWrites writes = pending.get(userId);
+            if (writes == null) {
+                return task;
+            }
+            order = writes.order == null ? null : writes.order.value();
+            statuses = writes.statusValues();
+        }
+        return overlay(task, orderIndexesOf(order), statuses);
+    }
+
+    /**
+     * Записывает в базу изменения всех пользователей, ожидающие в очереди.
+     */
+    @Scheduled(fixedDelayString = "${app.write-behind.flush-interval:PT1S}",
+            initialDelayString = "${app.write-behind.flush-interval:PT1S}")
+    public void flushAll() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> userIds;
+        synchronized (this) {
+            userIds = new ArrayList<>(pending.keySet());
+        }
+        // Пользователи блокируются в порядке ID, как и при любом другом сбросе пачки
+        userIds.sort(null);
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            flush(userIds.subList(from, Math.min(from + batchSize, userIds.size())));
+        }
+    }
+
+    /**
+     * Записывает в базу изменения пользователя, ожидающие в очереди. Вызывается перед
+     * синхронным изменением задач, чтобы отложенный статус не перезаписал его позже,
+     * и перед чтениями, которые не накладывают очередь на данные из базы.
+     * Выполняется в собственной транзакции, поэтому вызывать его нужно вне транзакции
+     * вызывающего: иначе запрос держал бы сразу два соединения пула.
+     *
+     * @param userId ID пользователя
+     */
+    public void flush(Long userId) {
+        if (enabled && hasPending(userId)) {
+            flush(List.of(userId));
+        }
+    }
+
+    private synchronized boolean hasPending(Long userId) {
+        return pending.containsKey(userId);
+    }
+
+    /**
+     * Записывает в базу изменения, оставшиеся в очереди после аварийного завершения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (enabled && getPendingCount() > 0) {
+            log.info("Flushing {} task writes recovered from {}", getPendingCount(), journalPath);
+            flushAll();
+        }
+    }
+
+    /**
+     * @return Количество изменений, еще не записанных в базу
+     */
+    public synchronized int getPendingCount() {
+        int count = 0;
+        for (PendingWrites writes : pending.values()) {
+            count += writes.size();
+        }
+        return count;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("task.write-behind.pending", this, TaskWriteBehindService::getPendingCount)
+                .description("Task writes acknowledged but not yet written to the database")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        flushAll();
+        synchronized (this) {
+            journal.close();
+        }
+    }
+
+    private void submit(JournalEntry entry) {
+        long position;
+        synchronized (this) {
+            try {
+                write(journal, entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to task write-behind journal", e);
+            }
+            // Порядок в очереди должен совпадать с порядком строк журнала, поэтому изменение
+            // применяется здесь; если fsync затем не удастся, запрос получит ошибку, а изменение
+            // останется в очереди и будет записано в базу
+            apply(entry);
+            position = ++appended;
+        }
+        if (fsync) {
+            awaitDurable(position);
+        }
+        // Ответы, выданные до этого изменения, больше не совпадают с содержимым списка
+        taskVersionService.touch(entry.userId());
+    }
+
+    /**
+     * Ждет, пока строка журнала с заданным номером окажется на диске. Если {@code fsync}
+     * сейчас никто не выполняет, поток сам сбрасывает все строки, дописанные к этому моменту;
+     * иначе ждет окончания текущего сброса и, если тот не покрыл его строку, выполняет следующий.
+     */
+    private void awaitDurable(long position) {
+        FileChannel channel;
+        long target;
+        synchronized (this) {
+            boolean interrupted = false;
+            while (forcing && durable < position) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (durable >= position) {
+                return;
+            }
+            forcing = true;
+            channel = journal;
+            target = appended;
+        }
+        IOException failure = null;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+        }
+        synchronized (this) {
+            forcing = false;
+            // Журнал мог быть переписан во время сброса; новый файл уже на диске целиком
+            if (failure == null || durable >= target) {
+                durable = Math.max(durable, target);
+                failure = null;
+            }
+            notifyAll();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Could not sync task write-behind journal", failure);
+        }
+    }
+
+    private void apply(JournalEntry entry) {
+        PendingWrites writes = pending.computeIfAbsent(entry.userId(), id -> new PendingWrites());
+        long seq = ++sequence;
+        switch (entry.type()) {
+            case ORDER -> writes.order = new Versioned<>(entry.taskIds(), seq);
+            case STATUS -> writes.statuses.put(entry.taskId(), new Versioned<>(entry.status(), seq));
+        }
+    }
+
+    private void flush(List<Long> userIds) {
+        flushLock.lock();
+        try {
+            Map<Long, PendingWrites> batch = new TreeMap<>();
+            synchronized (this) {
+                for (Long userId : userIds) {
+                    PendingWrites writes = pending.get(userId);
+                    if (writes != null) {
+                        batch.put(userId, writes.copy());
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(this::write));
+            } catch (RuntimeException e) {
+                // Изменения остаются в очереди и журнале до следующей попытки
+                log.error("Could not flush pending task writes of {} users", batch.size(), e);
+                return;
+            }
+            synchronized (this) {
+                batch.forEach((userId, written) -> {
+                    PendingWrites writes = pending.get(userId);
+                    if (writes != null && writes.removeWritten(written)) {
+                        pending.remove(userId);
+                    }
+                });
+                try {
+                    rewriteJournal();
+                } catch (IOException e) {
+                    // В журнале остались записанные изменения; повторить их при запуске безопасно
+                    log.warn("Could not compact task write-behind journal {}", journalPath, e);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Записывает изменения одного пользователя в текущей транзакции.
+     * Порядок пишется JDBC-батчем раньше, чем загружаются задачи для смены статуса:
+     * Hibernate обновляет строку целиком и иначе вернул бы прежний индекс сортировки.
+     */
+    private void write(Long userId, PendingWrites writes) {
+        User user = userRepository.getReferenceById(userId);
+        long changeSeq = taskSyncService.nextChangeSeq(userId);
+        if (writes.order != null) {
+            List<Long> taskIds = writes.order.value();
+            List<Integer> orderIndexes = new ArrayList<>(taskIds.size());
+            for (int i = 0; i < taskIds.size(); i++) {
+                orderIndexes.add(i * TaskService.ORDER_GAP);
+            }
+            taskRepository.updateOrderIndexes(user, taskIds, orderIndexes, changeSeq);
+            eventPublisher.publishEvent(TaskEvent.reordered(userId));
+        }
+        if (writes.statuses.isEmpty()) {
+            return;
+        }
+        for (Task task : taskRepository.findAllById(writes.statuses.keySet())) {
+            TaskStatus status = writes.statuses.get(task.getId()).value();
+            // Удаленные и чужие задачи пропускаются, как и при перестановке
+            if (!userId.equals(task.getUser().getId()) || status == task.getStatus()) {
+                continue;
+            }
+            TaskStatus previousStatus = task.getStatus();
+            task.setStatus(status);
+            task.setChangeSeq(changeSeq);
+            eventPublisher.publishEvent(TaskEvent.updated(task, previousStatus, task.getDueDate()));
+        }
+    }
+
+    private void openJournal() {
+        try {
+            Path directory = journalPath.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            if (Files.exists(journalPath)) {
+                replayJournal();
+            }
+            // Журнал переписывается сразу: оборванная строка не должна склеиться со следующей записью
+            synchronized (this) {
+                rewriteJournal();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open task write-behind journal " + journalPath, e);
+        }
+    }
+
+    private void replayJournal() throws IOException {
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JournalEntry entry;
+                try {
+                    entry = objectMapper.readValue(line, JournalEntry.class);
+                } catch (JsonProcessingException e) {
+                    log.warn("Skipping unreadable task write-behind journal entry: {}", line);
+                    continue;
+                }
+                synchronized (this) {
+                    apply(entry);
+                }
+                replayed++;
+            }
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} task write-behind journal entries from {}", replayed, journalPath);
+        }
+    }
+
+    /**
+     * Заменяет журнал файлом с текущим содержимым очереди. Новый файл записывается рядом
+     * и переименовывается атомарно, поэтому при аварии остается либо прежний журнал, либо новый.
+     */
+    private void rewriteJournal() throws IOException {
+        Path temporary = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            for (Map.Entry<Long, PendingWrites> writes : pending.entrySet()) {
+                for (JournalEntry entry : writes.getValue().toEntries(writes.getKey())) {
+                    write(channel, entry);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, journalPath, REPLACE_EXISTING, ATOMIC_MOVE);
+        if (journal != null) {
+            journal.close();
+        }
+        journal = FileChannel.open(journalPath, WRITE, APPEND);
+        // Все еще не записанные в базу изменения теперь в новом файле, уже сброшенном на диск
+        durable = appended;
+    }
+
+    private void write(FileChannel channel, JournalEntry entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer line = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+    }
+
+    private static Map<Long, Integer> orderIndexesOf(List<Long> order) {
+        if (order == null) {
+            return Map.of();
+        }
+        Map<Long, Integer> orderIndexes = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            orderIndexes.put(order.get(i), i * TaskService.ORDER_GAP);
+        }
+        return orderIndexes;
+    }
+
+    private static TaskView overlay(TaskView task, Map<Long, Integer> orderIndexes, Map<Long, TaskStatus> statuses) {
+        Integer orderIndex = orderIndexes.getOrDefault(task.id(), task.orderIndex());
+        TaskStatus status = statuses.getOrDefault(task.id(), task.status());
+        if (Objects.equals(orderIndex, task.orderIndex()) && status == task.status()) {
+            return task;
+        }
+        return new TaskView(task.id(), task.title(), task.description(), status, task.dueDate(),
+                orderIndex, task.createdAt());
+    }
+
+    /**
+     * Строка журнала. Для ORDER заполнен taskIds, для STATUS — taskId и status.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record JournalEntry(Type type, Long userId, Long taskId, TaskStatus status, List<Long> taskIds) {
+
+        enum Type {
+            ORDER,
+            STATUS
+        }
+    }
+
+    /**
+     * Значение изменения и его номер в очереди. По номеру после сброса отличается
+     * записанное значение от более нового, поставленного в очередь во время записи.
+     */
+    private record Versioned<T>(T value, long seq) {
+    }
+
+    /**
+     * Не записанные изменения одного пользователя: последний порядок и последние статусы задач.
+     */
+    private static final class PendingWrites {
+
+        private Versioned<List<Long>> order;
+        private final Map<Long, Versioned<TaskStatus>> statuses = new HashMap<>();
+
+        PendingWrites copy() {
+            PendingWrites copy = new PendingWrites();
+            copy.order = order;
+            copy.statuses.putAll(statuses);
+            return copy;
+        }
+
+        Map<Long, TaskStatus> statusValues() {
+            Map<Long, TaskStatus> values = new HashMap<>();
+            statuses.forEach((taskId, status) -> values.put(taskId, status.value()));
+            return values;
+        }
+
+        /**
+         * Убирает записанные изменения, если после записи они не были заменены.
+         *
+         * @return true, если ожидающих изменений не осталось
+         */
+        boolean removeWritten(PendingWrites written) {
+            if (order != null && order.equals(written.order)) {
+                order = null;
+            }
+            written.statuses.forEach(statuses::remove);
+            return order == null && statuses.isEmpty();
+        }
+
+        List<JournalEntry> toEntries(Long userId) {
+            List<JournalEntry> entries = new ArrayList<>(size());
+            if (order != null) {
+                entries.add(new JournalEntry(JournalEntry.Type.ORDER, userId, null, null, order.value()));
+            }
+            statuses.forEach((taskId, status) -> entries.add(
+                    new JournalEntry(JournalEntry.Type.STATUS, userId, taskId, status.value(), null)));
+            return entries;
+        }
+
+        int size() {
+            return (order == null ? 0 : 1) + statuses.size();
+        }
+    }
+}
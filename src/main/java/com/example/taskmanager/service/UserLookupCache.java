@@ -0,0 +1,67 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Кэш пользователей по имени (логину).
+ * Ограничен по размеру и времени жизни записи; отсутствующие пользователи не кэшируются.
+ * Записи сбрасываются при изменении имени или пароля через {@link UserService}.
+ * Попадания и промахи — метрика {@code cache.gets{cache=user-lookup}}.
+ */
+@Component
+public class UserLookupCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> cache;
+
+    public UserLookupCache(UserRepository userRepository,
+            @Value("${app.user-cache.max-size:10000}") long maxSize,
+            @Value("${app.user-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает пользователя из кэша или загружает его из базы.
+     *
+     * @param username Имя пользователя
+     * @return Пользователь (отсоединенная сущность, изменять нельзя)
+     * @throws UsernameNotFoundException если пользователь не найден
+     */
+    public User get(String username) {
+        User user = cache.get(username, name -> userRepository.findByUsername(name).orElse(null));
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        return user;
+    }
+
+    /**
+     * Удаляет пользователя из кэша.
+     *
+     * @param username Имя пользователя
+     */
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "user-lookup");
+    }
+}
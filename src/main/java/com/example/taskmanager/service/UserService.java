@@ -2,25 +2,34 @@ package com.example.taskmanager.service;
 
 import com.example.taskmanager.model.User;
 import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.security.TieredUserCache;
+import com.example.taskmanager.security.UserPrincipal;
+import com.example.taskmanager.security.VerifiedCredentialCache;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 /**
  * Сервис для управления пользователями и аутентификации.
- * Реализует интерфейс UserDetailsService для интеграции со Spring Security.
+ * Реализует интерфейс UserDetailsService для интеграции со Spring Security,
+ * а UserDetailsPasswordService позволяет перехешировать пароль при входе,
+ * если изменилась стоимость BCrypt.
  */
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+@Timed(value = "user.service", description = "Time spent in UserService methods")
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserLookupCache userLookupCache;
+    private final TieredUserCache userCache;
+    private final VerifiedCredentialCache verifiedCredentialCache;
 
     /**
      * Регистрирует нового пользователя.
@@ -31,7 +40,9 @@ public class UserService implements UserDetailsService {
      */
     public User registerUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userLookupCache.invalidate(saved.getUsername());
+        return saved;
     }
 
     /**
@@ -48,18 +59,33 @@ public class UserService implements UserDetailsService {
 
     /**
      * Загружает данные пользователя для Spring Security.
+     * Пользователь берется из {@link UserLookupCache}, поэтому повторные входы
+     * не обращаются к базе.
      *
      * @param username Имя пользователя
-     * @return UserDetails объект
+     * @return UserDetails объект с ID пользователя
      * @throws UsernameNotFoundException если пользователь не найден
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = findByUsername(username);
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                Collections.emptyList());
+        return new UserPrincipal(userLookupCache.get(username));
+    }
+
+    /**
+     * Сохраняет пароль, перехешированный Spring Security при успешном входе.
+     * Вызывается, когда {@link PasswordEncoder#upgradeEncoding} сообщает, что стоимость хеша устарела.
+     *
+     * @param user        Аутентифицированный пользователь
+     * @param newPassword Новый хеш пароля
+     * @return Пользователь с новым хешем
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = findByUsername(user.getUsername());
+        entity.setPassword(newPassword);
+        userRepository.save(entity);
+        evict(entity.getUsername());
+        return new UserPrincipal(entity);
     }
 
     /**
@@ -72,6 +98,7 @@ public class UserService implements UserDetailsService {
         User user = findByUsername(username);
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        evict(username);
     }
 
     /**
@@ -89,5 +116,17 @@ public class UserService implements UserDetailsService {
         User user = findByUsername(oldUsername);
         user.setUsername(newUsername);
         userRepository.save(user);
+        evict(oldUsername);
+        evict(newUsername);
+    }
+
+    /**
+     * Удаляет пользователя из всех кэшей: поиска по имени, {@link UserDetails} для входа
+     * и проверенных паролей.
+     */
+    private void evict(String username) {
+        userLookupCache.invalidate(username);
+        userCache.removeUserFromCache(username);
+        verifiedCredentialCache.invalidate(username);
     }
 }
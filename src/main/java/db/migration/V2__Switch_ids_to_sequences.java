@@ -0,0 +1,45 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Переводит генерацию ID задач и пользователей с IDENTITY на последовательности.
+ * Последовательности начинаются выше текущего максимального ID, чтобы первый блок
+ * ID, выделенный pooled-оптимизатором Hibernate, не пересекся с существующими строками.
+ * Миграция написана на Java, так как начальное значение зависит от данных.
+ */
+public class V2__Switch_ids_to_sequences extends BaseJavaMigration {
+
+    /**
+     * Шаг последовательностей; должен совпадать с allocationSize в сущностях.
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        createSequence(connection, "tasks", "tasks_seq");
+        createSequence(connection, "users", "users_seq");
+    }
+
+    private static void createSequence(Connection connection, String table, String sequence) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            long maxId;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                rs.next();
+                maxId = rs.getLong(1);
+            }
+            statement.execute("CREATE SEQUENCE " + sequence
+                    + " START WITH " + (maxId + ALLOCATION_SIZE)
+                    + " INCREMENT BY " + ALLOCATION_SIZE);
+            // ID теперь всегда задает Hibernate; IDENTITY больше не должен выдавать значения
+            statement.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY");
+        }
+    }
+}
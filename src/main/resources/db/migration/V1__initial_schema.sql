@@ -0,0 +1,28 @@
+-- Схема, которую до перехода на Flyway создавал Hibernate (ddl-auto=update).
+-- Существующие базы помечаются этой версией (baseline) и V1 к ним не применяется.
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    password VARCHAR(255) NOT NULL,
+    role     VARCHAR(255),
+    username VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT UK_r43af9ap4edm43mmtq01oddj6 UNIQUE (username)
+);
+
+CREATE TABLE IF NOT EXISTS tasks (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    created_at  TIMESTAMP(6),
+    description VARCHAR(255),
+    due_date    DATE,
+    order_index INTEGER,
+    status      VARCHAR(255) CHECK (status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED')),
+    title       VARCHAR(255) NOT NULL,
+    user_id     BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT FK6s1ob9k4ihi75xbxe2w0ylsdh FOREIGN KEY (user_id) REFERENCES users
+);
+
+CREATE INDEX IF NOT EXISTS idx_tasks_user_order ON tasks (user_id, order_index, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_user_due_date ON tasks (user_id, due_date, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_user_created ON tasks (user_id, created_at, id);
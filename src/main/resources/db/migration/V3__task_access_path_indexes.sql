@@ -0,0 +1,8 @@
+-- Составные индексы для выборок задач с фильтром по статусу.
+-- Индексы (user_id, order_index, id), (user_id, due_date, id) и (user_id, created_at, id)
+-- созданы в V1; здесь добавляются те же ключи с префиксом (user_id, status),
+-- чтобы постраничная выдача с фильтром и подсчеты по статусам не читали лишние строки.
+
+CREATE INDEX IF NOT EXISTS idx_tasks_user_status_order ON tasks (user_id, status, order_index, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_user_status_due_date ON tasks (user_id, status, due_date, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_user_status_created ON tasks (user_id, status, created_at, id);
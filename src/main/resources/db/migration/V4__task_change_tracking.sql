@@ -0,0 +1,23 @@
+-- Отслеживание изменений для синхронизации по дельте.
+-- users.change_seq — последний выданный номер изменения задач пользователя,
+-- users.tombstone_floor — наибольший номер удаления, чья запись уже удалена при компактировании.
+-- Каждая задача хранит номер своего последнего изменения; удаленные задачи
+-- остаются в task_tombstones до компактирования.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS change_seq BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS tombstone_floor BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS change_seq BIGINT DEFAULT 0 NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_tasks_user_change_seq ON tasks (user_id, change_seq);
+
+CREATE TABLE IF NOT EXISTS task_tombstones (
+    task_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    change_seq BIGINT NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (task_id),
+    CONSTRAINT fk_task_tombstones_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+CREATE INDEX IF NOT EXISTS idx_task_tombstones_user_change_seq ON task_tombstones (user_id, change_seq);
+CREATE INDEX IF NOT EXISTS idx_task_tombstones_deleted_at ON task_tombstones (deleted_at);
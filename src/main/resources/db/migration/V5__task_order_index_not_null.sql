@@ -0,0 +1,8 @@
+-- Индекс сортировки становится обязательным.
+-- H2 ставит NULL в начало сортировки по возрастанию, а PostgreSQL — в конец, поэтому
+-- задачи без индекса выводились бы на разных базах в разном порядке. Такие задачи
+-- получают индекс 0, как и новые задачи, созданные без индекса.
+
+UPDATE tasks SET order_index = 0 WHERE order_index IS NULL;
+ALTER TABLE tasks ALTER COLUMN order_index SET DEFAULT 0;
+ALTER TABLE tasks ALTER COLUMN order_index SET NOT NULL;
@@ -0,0 +1,6 @@
+-- Индекс по сроку без префикса пользователя.
+-- Планировщик сроков (TaskDueDateService) подгружает незавершенные задачи всех пользователей
+-- по одному дню: due_date = ? AND id > ? ORDER BY id. Индекс (user_id, due_date, id) из V1
+-- для такого запроса не подходит, и без этого индекса каждая подгрузка читала бы всю таблицу.
+
+CREATE INDEX IF NOT EXISTS idx_tasks_due_date ON tasks (due_date, id);
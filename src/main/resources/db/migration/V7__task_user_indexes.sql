@@ -0,0 +1,9 @@
+-- Индексы (user_id, order_index, id), (user_id, due_date, id) и (user_id, created_at, id).
+-- Они объявлены в V1, но базы, созданные до Flyway, помечаются версией 1 (baseline) и V1
+-- не выполняют. Без этой миграции такие базы под ddl-auto=validate остались бы без индексов,
+-- на которые опираются сортировка списка и постраничная выдача. Для баз, где V1 выполнялась,
+-- миграция ничего не делает.
+
+CREATE INDEX IF NOT EXISTS idx_tasks_user_order ON tasks (user_id, order_index, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_user_due_date ON tasks (user_id, due_date, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_user_created ON tasks (user_id, created_at, id);
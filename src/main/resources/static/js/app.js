@@ -23,7 +23,10 @@ const editTaskDueDate = document.getElementById('editTaskDueDate'); // New input
 const editTaskStatus = document.getElementById('editTaskStatus');
 
 // Initialize
-document.addEventListener('DOMContentLoaded', fetchTasks);
+document.addEventListener('DOMContentLoaded', () => {
+    fetchTasks();
+    subscribeToTaskStream();
+});
 
 // Event Listeners
 addTaskBtn.addEventListener('click', createTask);
@@ -55,15 +58,16 @@ saveTaskBtn.onclick = updateTask;
 // API Functions
 async function fetchTasks() {
     try {
-        const response = await fetch(API_URL);
+        const response = await fetch(API_URL, { headers: { 'Accept': LIST_ACCEPT } });
 
         if (response.status === 401) {
             window.location.href = '/login.html';
             return;
         }
 
-        tasks = await response.json();
+        tasks = await readBody(response);
         renderTasks();
+        updateStats();
         checkUser(); // Check user info
     } catch (error) {
         console.error('Error fetching tasks:', error);
@@ -71,6 +75,110 @@ async function fetchTasks() {
     }
 }
 
+// The task list is requested as CBOR: it is smaller than JSON and cheaper to produce on the
+// server for long lists. Any other Content-Type (e.g. a proxy that rewrote it) is read as JSON
+const LIST_ACCEPT = 'application/cbor, application/json;q=0.9';
+
+async function readBody(response) {
+    const type = response.headers.get('Content-Type') || '';
+    if (type.startsWith('application/cbor')) {
+        return decodeCbor(await response.arrayBuffer());
+    }
+    return response.json();
+}
+
+// Minimal CBOR decoder (RFC 8949) for what Jackson writes: integers, floats, strings,
+// arrays and maps of definite or indefinite length, booleans and null. Tags are skipped
+function decodeCbor(buffer) {
+    const view = new DataView(buffer);
+    const utf8 = new TextDecoder();
+    let offset = 0;
+
+    function readArgument(info) {
+        let value;
+        if (info < 24) return info;
+        if (info === 24) { value = view.getUint8(offset); offset += 1; return value; }
+        if (info === 25) { value = view.getUint16(offset); offset += 2; return value; }
+        if (info === 26) { value = view.getUint32(offset); offset += 4; return value; }
+        if (info === 27) { value = Number(view.getBigUint64(offset)); offset += 8; return value; }
+        if (info === 31) return -1; // indefinite length, terminated by the 0xff break byte
+        throw new Error('Malformed CBOR');
+    }
+
+    function atBreak() {
+        if (view.getUint8(offset) !== 0xff) return false;
+        offset += 1;
+        return true;
+    }
+
+    function readItem() {
+        const initial = view.getUint8(offset);
+        offset += 1;
+        const major = initial >> 5;
+        const info = initial & 0x1f;
+        switch (major) {
+            case 0: return readArgument(info);
+            case 1: return -1 - readArgument(info);
+            case 2:
+            case 3: {
+                const length = readArgument(info);
+                if (length < 0) {
+                    const chunks = [];
+                    while (!atBreak()) chunks.push(readItem());
+                    return chunks.join('');
+                }
+                const bytes = new Uint8Array(buffer, offset, length);
+                offset += length;
+                return major === 3 ? utf8.decode(bytes) : bytes;
+            }
+            case 4: {
+                const length = readArgument(info);
+                const array = [];
+                while (length < 0 ? !atBreak() : array.length < length) array.push(readItem());
+                return array;
+            }
+            case 5: {
+                const length = readArgument(info);
+                const map = {};
+                for (let i = 0; length < 0 ? !atBreak() : i < length; i++) {
+                    const key = readItem();
+                    map[key] = readItem();
+                }
+                return map;
+            }
+            case 6:
+                readArgument(info);
+                return readItem();
+            default: {
+                if (info === 20) return false;
+                if (info === 21) return true;
+                if (info === 22 || info === 23) return null;
+                let value;
+                if (info === 26) { value = view.getFloat32(offset); offset += 4; return value; }
+                if (info === 27) { value = view.getFloat64(offset); offset += 8; return value; }
+                throw new Error('Unsupported CBOR item');
+            }
+        }
+    }
+
+    return readItem();
+}
+
+// Live updates: changes from other tabs and devices arrive via Server-Sent Events
+let streamRefreshTimer = null;
+
+function subscribeToTaskStream() {
+    if (!window.EventSource) return;
+    const source = new EventSource(API_URL + '/stream');
+    // A burst of events results in a single re-read; unchanged lists come back as 304
+    source.addEventListener('task', () => {
+        clearTimeout(streamRefreshTimer);
+        streamRefreshTimer = setTimeout(fetchTasks, 200);
+    });
+    // The server dropped queued events; the browser reconnects automatically
+    source.addEventListener('resync', fetchTasks);
+}
+
 async function checkUser() {
     try {
         const res = await fetch('/auth/user');
@@ -155,6 +263,24 @@ async function updateTask() {
     }
 }
 
+// Status badge cycles PENDING -> IN_PROGRESS -> COMPLETED; only the status is sent
+const NEXT_STATUS = { PENDING: 'IN_PROGRESS', IN_PROGRESS: 'COMPLETED', COMPLETED: 'PENDING' };
+
+async function toggleStatus(id, status, event) {
+    event.stopPropagation();
+
+    try {
+        const response = await fetch(`${API_URL}/${id}/status`, {
+            method: 'PUT',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({ status: NEXT_STATUS[status] || 'PENDING' })
+        });
+        if (response.ok) fetchTasks();
+    } catch (error) {
+        console.error('Error updating status:', error);
+    }
+}
+
 // UI Functions
 function renderTasks() {
     taskList.innerHTML = '';
@@ -211,7 +337,7 @@ function renderTasks() {
             <div class="task-content">
                 <h3>${escapeHtml(task.title)}</h3>
                 <div class="task-meta">
-                    <span class="status-badge">${getStatusLabel(task.status)}</span>
+                    <span class="status-badge" title="Сменить статус" onclick="toggleStatus(${task.id}, '${task.status}', event)">${getStatusLabel(task.status)}</span>
                     ${dueDateHtml}
                 </div>
             </div>
@@ -229,7 +355,7 @@ function renderTasks() {
 
         card.addEventListener('dragend', () => {
             card.classList.remove('dragging');
-            saveOrder();
+            moveTask(card);
         });
 
         taskList.appendChild(card);
@@ -246,18 +372,21 @@ function renderTasks() {
             taskList.insertBefore(draggable, afterElement);
         }
     });
-
-    updateStats();
 }
 
-function updateStats() {
-    const pending = tasks.filter(t => t.status === 'PENDING').length;
-    const progress = tasks.filter(t => t.status === 'IN_PROGRESS').length;
-    const completed = tasks.filter(t => t.status === 'COMPLETED').length;
+// Counters are maintained on the server, so the stats panel does not depend on the loaded list
+async function updateStats() {
+    try {
+        const response = await fetch(`${API_URL}/stats`);
+        if (!response.ok) return;
+        const stats = await response.json();
 
-    document.getElementById('statPending').textContent = pending;
-    document.getElementById('statProgress').textContent = progress;
-    document.getElementById('statCompleted').textContent = completed;
+        document.getElementById('statPending').textContent = stats.byStatus.PENDING || 0;
+        document.getElementById('statProgress').textContent = stats.byStatus.IN_PROGRESS || 0;
+        document.getElementById('statCompleted').textContent = stats.byStatus.COMPLETED || 0;
+    } catch (error) {
+        console.error('Error fetching stats:', error);
+    }
 }
 
 function getDragAfterElement(container, y) {
@@ -274,15 +403,19 @@ function getDragAfterElement(container, y) {
     }, { offset: Number.NEGATIVE_INFINITY }).element;
 }
 
-async function saveOrder() {
-    const taskCards = [...taskList.querySelectorAll('.task-card')];
-    const taskIds = taskCards.map(card => parseInt(card.dataset.id));
+// Sends only the dropped card and its new neighbours, so the server rewrites one row
+async function moveTask(card) {
+    const prev = card.previousElementSibling;
+    const next = card.nextElementSibling;
 
     try {
-        await fetch(`${API_URL}/reorder`, {
+        await fetch(`${API_URL}/${card.dataset.id}/move`, {
             method: 'PUT',
             headers: { 'Content-Type': 'application/json' },
-            body: JSON.stringify(taskIds)
+            body: JSON.stringify({
+                previousId: prev && prev.dataset.id ? parseInt(prev.dataset.id) : null,
+                nextId: next && next.dataset.id ? parseInt(next.dataset.id) : null
+            })
         });
     } catch (error) {
         console.error('Error saving order:', error);
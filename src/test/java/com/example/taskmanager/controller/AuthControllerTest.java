@@ -1,7 +1,9 @@
 package com.example.taskmanager.controller;
 
 import com.example.taskmanager.config.SecurityConfig;
+import com.example.taskmanager.exception.PasswordHashingBusyException;
 import com.example.taskmanager.model.User;
+import com.example.taskmanager.security.UserPrincipal;
 import com.example.taskmanager.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -10,14 +12,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -34,6 +38,9 @@ class AuthControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @Test
     void register_Success() throws Exception {
         User user = new User();
@@ -47,6 +54,21 @@ class AuthControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void register_WhenHashingPoolIsBusy_ShouldReturnServiceUnavailable() throws Exception {
+        User user = new User();
+        user.setUsername("new");
+        user.setPassword("pass");
+        doThrow(new PasswordHashingBusyException("busy")).when(userService).registerUser(any(User.class));
+
+        mockMvc.perform(post("/auth/register")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     @Test
     @WithMockUser(username = "user")
     void getCurrentUser_Authenticated() throws Exception {
@@ -55,6 +77,29 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.username").value("user"));
     }
 
+    @Test
+    void basicAuth_RepeatedRequests_ShouldLoadUserOnce() throws Exception {
+        when(userService.loadUserByUsername("basic"))
+                .thenReturn(new UserPrincipal(5L, "basic", passwordEncoder.encode("secret"), "ROLE_USER"));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/auth/user").with(httpBasic("basic", "secret")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.username").value("basic"));
+        }
+        verify(userService, times(1)).loadUserByUsername("basic");
+    }
+
+    @Test
+    void basicAuth_WrongPassword_ShouldReturnUnauthorized() throws Exception {
+        when(userService.loadUserByUsername("basic-wrong"))
+                .thenReturn(new UserPrincipal(6L, "basic-wrong", passwordEncoder.encode("secret"), "ROLE_USER"));
+
+        mockMvc.perform(get("/auth/user").with(httpBasic("basic-wrong", "wrong")))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().exists("WWW-Authenticate"));
+    }
+
     @Test
     void getCurrentUser_Unauthenticated() throws Exception {
         mockMvc.perform(get("/auth/user"))
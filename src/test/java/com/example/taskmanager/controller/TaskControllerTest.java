@@ -1,23 +1,36 @@
 package com.example.taskmanager.controller;
 
-import com.example.taskmanager.model.Task;
+import com.example.taskmanager.config.SerializationConfig;
+import com.example.taskmanager.dto.TaskPage;
+import com.example.taskmanager.dto.TaskRequest;
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.exception.FeatureDisabledException;
+import com.example.taskmanager.model.TaskSortKey;
 import com.example.taskmanager.model.TaskStatus;
 import com.example.taskmanager.service.TaskService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
-import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -25,6 +38,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(TaskController.class)
+@Import(SerializationConfig.class)
 class TaskControllerTest {
 
     @Autowired
@@ -39,11 +53,7 @@ class TaskControllerTest {
     @Test
     @WithMockUser(username = "testuser")
     void getAllTasks_ShouldReturnList() throws Exception {
-        Task t1 = new Task();
-        t1.setId(1L);
-        t1.setTitle("T1");
-
-        when(taskService.getAllTasks()).thenReturn(Arrays.asList(t1));
+        when(taskService.getAllTasks()).thenReturn(List.of(view(1L, "T1")));
 
         mockMvc.perform(get("/api/tasks"))
                 .andExpect(status().isOk())
@@ -52,26 +62,144 @@ class TaskControllerTest {
 
     @Test
     @WithMockUser(username = "testuser")
-    void createTask_ShouldReturnSavedTask() throws Exception {
-        Task task = new Task();
-        task.setTitle("New Task");
+    void searchTasks_ShouldReturnMatches() throws Exception {
+        when(taskService.searchTasks("отч", 20)).thenReturn(List.of(view(5L, "Подготовить отчет")));
+
+        mockMvc.perform(get("/api/tasks/search").param("q", "отч"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(5));
+    }
 
-        Task saved = new Task();
-        saved.setId(1L);
-        saved.setTitle("New Task");
-        saved.setStatus(TaskStatus.PENDING);
+    @Test
+    @WithMockUser(username = "testuser")
+    void searchTasks_WhenDisabled_ShouldReturnNotImplemented() throws Exception {
+        when(taskService.searchTasks("отч", 20)).thenThrow(new FeatureDisabledException("Task search is disabled"));
+
+        mockMvc.perform(get("/api/tasks/search").param("q", "отч"))
+                .andExpect(status().isNotImplemented())
+                .andExpect(jsonPath("$.error").value("Task search is disabled"));
+    }
 
-        when(taskService.createTask(any(Task.class))).thenReturn(saved);
+    @Test
+    @WithMockUser(username = "testuser")
+    void streamTasks_WhenDisabled_ShouldReturnNoContent() throws Exception {
+        when(taskService.openStream()).thenReturn(Optional.empty());
+
+        // По спецификации SSE ответ 204 останавливает переподключения EventSource
+        mockMvc.perform(get("/api/tasks/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getAllTasks_ShouldTagResponseWithVersion() throws Exception {
+        when(taskService.getTasksVersion()).thenReturn("v1");
+        when(taskService.getAllTasks()).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/tasks"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"v1\""))
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getAllTasks_WithCurrentETag_ShouldReturnNotModifiedWithoutLoading() throws Exception {
+        when(taskService.getTasksVersion()).thenReturn("v1");
+
+        mockMvc.perform(get("/api/tasks").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("ETag", "W/\"v1\""));
+
+        verify(taskService, never()).getAllTasks();
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getAllTasks_WithCborAccept_ShouldReturnSameFieldsInCbor() throws Exception {
+        when(taskService.getTasksVersion()).thenReturn("v1");
+        when(taskService.getAllTasks()).thenReturn(List.of(
+                new TaskView(1L, "T1", null, TaskStatus.PENDING, LocalDate.of(2024, 5, 1), 0, null)));
+
+        byte[] body = mockMvc.perform(get("/api/tasks").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode tasks = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertEquals("T1", tasks.get(0).get("title").asText());
+        assertEquals("2024-05-01", tasks.get(0).get("dueDate").asText());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTaskById_WithStaleETag_ShouldReturnTask() throws Exception {
+        when(taskService.getTasksVersion()).thenReturn("v2");
+        when(taskService.getTaskById(1L)).thenReturn(Optional.of(view(1L, "T1")));
+
+        mockMvc.perform(get("/api/tasks/1").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"v2\""))
+                .andExpect(jsonPath("$.title").value("T1"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getTasksPage_ShouldPassFilterSortAndCursor() throws Exception {
+        when(taskService.getTasksPage(TaskStatus.PENDING, TaskSortKey.DUE_DATE, "abc", 20))
+                .thenReturn(new TaskPage(List.of(view(5L, "T5")), "next"));
+
+        mockMvc.perform(get("/api/tasks")
+                .param("status", "PENDING")
+                .param("sort", "dueDate")
+                .param("cursor", "abc")
+                .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("T5"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void getStats_ShouldReturnCounters() throws Exception {
+        when(taskService.getStats()).thenReturn(new TaskStats(4,
+                Map.of(TaskStatus.PENDING, 2L, TaskStatus.IN_PROGRESS, 1L, TaskStatus.COMPLETED, 1L), 1, 0.25));
+
+        mockMvc.perform(get("/api/tasks/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byStatus.PENDING").value(2))
+                .andExpect(jsonPath("$.overdue").value(1))
+                .andExpect(jsonPath("$.completionRate").value(0.25));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void createTask_ShouldReturnSavedTask() throws Exception {
+        TaskRequest request = new TaskRequest("New Task", null, null, LocalDate.of(2024, 5, 1), null);
+        when(taskService.createTask(request)).thenReturn(view(1L, "New Task"));
 
         mockMvc.perform(post("/api/tasks")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(task)))
+                .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.title").value("New Task"));
     }
 
+    @Test
+    @WithMockUser(username = "testuser")
+    void createTask_WithBlankTitle_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/tasks")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\" \"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(taskService, never()).createTask(any());
+    }
+
     @Test
     @WithMockUser(username = "testuser")
     void deleteTask_ShouldReturnOk() throws Exception {
@@ -81,4 +209,8 @@ class TaskControllerTest {
 
         verify(taskService).deleteTask(1L);
     }
+
+    private static TaskView view(Long id, String title) {
+        return new TaskView(id, title, null, TaskStatus.PENDING, null, 0, null);
+    }
 }
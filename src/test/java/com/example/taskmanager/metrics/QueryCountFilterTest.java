@@ -0,0 +1,56 @@
+package com.example.taskmanager.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCountFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueryCountInspector inspector = new QueryCountInspector();
+    private final QueryCountFilter filter = new QueryCountFilter(registry, 2);
+
+    @Test
+    void doFilter_ShouldRecordQueriesPerRequestByUriPattern() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks/42");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/tasks/{id}");
+            inspector.inspect("select 1");
+            inspector.inspect("select 2");
+            inspector.inspect("select 3");
+        });
+
+        DistributionSummary summary = registry.get(QueryCountFilter.METRIC_NAME)
+                .tag("method", "GET")
+                .tag("uri", "/api/tasks/{id}")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(3, summary.totalAmount());
+    }
+
+    @Test
+    void doFilter_ShouldCountEachRequestSeparately() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(),
+                (req, res) -> inspector.inspect("select 1"));
+        filter.doFilter(new MockHttpServletRequest("GET", "/"), new MockHttpServletResponse(), (req, res) -> {
+        });
+
+        DistributionSummary summary = registry.get(QueryCountFilter.METRIC_NAME).tag("uri", "UNKNOWN").summary();
+        assertEquals(2, summary.count());
+        assertEquals(1, summary.max());
+    }
+
+    @Test
+    void inspect_OutsideRequest_ShouldNotCount() {
+        assertEquals("select 1", inspector.inspect("select 1"));
+
+        QueryCountInspector.begin();
+        assertEquals(0, QueryCountInspector.end());
+    }
+}
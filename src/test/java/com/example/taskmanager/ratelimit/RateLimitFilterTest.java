@@ -0,0 +1,175 @@
+package com.example.taskmanager.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static final FilterChain OK = (req, res) -> {
+    };
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Clock clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void ipRule_ShouldRejectWithRetryAfterOnceBucketIsEmpty() throws Exception {
+        RateLimitFilter filter = filter("register", "POST", "/auth/register", RateLimitProperties.Key.IP, 2,
+                Duration.ofMinutes(1));
+
+        assertEquals(200, send(filter, post("/auth/register", "10.0.0.1")).getStatus());
+        assertEquals(200, send(filter, post("/auth/register", "10.0.0.1")).getStatus());
+        MockHttpServletResponse rejected = send(filter, post("/auth/register", "10.0.0.1"));
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("30", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"error\""));
+        assertEquals(200, send(filter, post("/auth/register", "10.0.0.2")).getStatus());
+        assertEquals(1, registry.get(RateLimitFilter.REJECTED_METRIC).tag("rule", "register").counter().count());
+    }
+
+    @Test
+    void rule_ShouldIgnoreOtherMethodsAndPaths() throws Exception {
+        RateLimitFilter filter = filter("register", "POST", "/auth/register", RateLimitProperties.Key.IP, 1,
+                Duration.ofMinutes(1));
+
+        send(filter, post("/auth/register", "10.0.0.1"));
+
+        assertEquals(200, send(filter, request("GET", "/auth/register")).getStatus());
+        assertEquals(200, send(filter, post("/auth/login", "10.0.0.1")).getStatus());
+    }
+
+    @Test
+    void principalRule_ShouldCountUsersSeparatelyBehindOneAddress() throws Exception {
+        RateLimitFilter filter = filter("reorder", "PUT", "/api/tasks/reorder", RateLimitProperties.Key.PRINCIPAL, 1,
+                Duration.ofSeconds(10));
+
+        authenticate("alice");
+        assertEquals(200, send(filter, put("/api/tasks/reorder")).getStatus());
+        assertEquals(429, send(filter, put("/api/tasks/reorder")).getStatus());
+
+        authenticate("bob");
+        assertEquals(200, send(filter, put("/api/tasks/reorder")).getStatus());
+    }
+
+    @Test
+    void concurrencyLimit_ShouldShedLoadWith503() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, new AndRequestMatcher(
+                new AntPathRequestMatcher("/api/**"),
+                new NegatedRequestMatcher(new AntPathRequestMatcher("/api/tasks/stream"))), registry);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> slow = CompletableFuture.supplyAsync(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            try {
+                filter.doFilter(request("GET", "/api/tasks"), response, (req, res) -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return response;
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse shed = send(filter, request("GET", "/api/tasks"));
+        // Запросы без обращения к базе лимит не расходуют
+        MockHttpServletResponse health = send(filter, request("GET", "/actuator/health"));
+        MockHttpServletResponse stream = send(filter, request("GET", "/api/tasks/stream"));
+        MockHttpServletResponse page = send(filter, request("GET", "/js/app.js"));
+        release.countDown();
+
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+        assertEquals(200, health.getStatus());
+        assertEquals(200, stream.getStatus());
+        assertEquals(200, page.getStatus());
+        assertEquals(200, slow.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(200, send(filter, request("GET", "/api/tasks")).getStatus());
+    }
+
+    @Test
+    void concurrencyLimit_ShouldHoldPermitUntilAsyncRequestCompletes() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, new AntPathRequestMatcher("/api/**"), registry);
+        MockHttpServletRequest export = request("GET", "/api/tasks/export");
+        export.setAsyncSupported(true);
+
+        // Как StreamingResponseBody: обработчик возвращается, а тело пишется позже в другом потоке
+        filter.doFilter(export, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(503, send(filter, request("GET", "/api/tasks")).getStatus());
+        assertEquals(1, registry.get("http.server.requests.concurrent").gauge().value());
+
+        export.getAsyncContext().complete();
+
+        assertEquals(0, registry.get("http.server.requests.concurrent").gauge().value());
+        assertEquals(200, send(filter, request("GET", "/api/tasks")).getStatus());
+    }
+
+    private RateLimitFilter filter(String name, String method, String path, RateLimitProperties.Key key,
+            long capacity, Duration period) {
+        RateLimitFilter.Limit limit = new RateLimitFilter.Limit(name, new AntPathRequestMatcher(path, method), key,
+                new TokenBucketLimiter(capacity, period, 100));
+        return new RateLimitFilter(List.of(limit), clock, registry);
+    }
+
+    private static MockHttpServletResponse send(jakarta.servlet.Filter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, OK);
+        return response;
+    }
+
+    private static MockHttpServletRequest post(String path, String address) {
+        MockHttpServletRequest request = request("POST", path);
+        request.setRemoteAddr(address);
+        return request;
+    }
+
+    private static MockHttpServletRequest put(String path) {
+        return request("PUT", path);
+    }
+
+    /**
+     * Запрос к DispatcherServlet: путь целиком в servletPath, как у Tomcat при отображении на "/".
+     */
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.taskmanager.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenRefillAtRate() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, Duration.ofSeconds(3), 100);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(SECOND, limiter.tryAcquire("a", now));
+
+        // Через секунду появляется ровно один жетон
+        assertEquals(0, limiter.tryAcquire("a", now + SECOND));
+        assertTrue(limiter.tryAcquire("a", now + SECOND) > 0);
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepSeparateBucketsPerKey() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, Duration.ofMinutes(1), 100);
+
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        assertTrue(limiter.tryAcquire("a", 0) > 0);
+        assertEquals(0, limiter.tryAcquire("b", 0));
+    }
+
+    @Test
+    void tryAcquire_ShouldNotAccumulateMoreThanCapacity() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, Duration.ofSeconds(2), 100);
+
+        limiter.tryAcquire("a", 0);
+        long later = 3_600 * SECOND;
+        assertEquals(0, limiter.tryAcquire("a", later));
+        assertEquals(0, limiter.tryAcquire("a", later));
+        assertTrue(limiter.tryAcquire("a", later) > 0);
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallers_ShouldGetExactlyCapacityTokens() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1_000, Duration.ofHours(1), 100);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        if (limiter.tryAcquire("shared", 0) == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1_000, granted.get());
+    }
+}
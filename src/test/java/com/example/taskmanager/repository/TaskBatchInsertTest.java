@@ -0,0 +1,66 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TaskBatchInsertTest {
+
+    private static final int TASKS = 1000;
+    private static final int BATCH_SIZE = 50;
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void saveAll_ShouldInsertInJdbcBatches() {
+        User user = new User();
+        user.setUsername("batch");
+        user.setPassword("secret");
+        user = userRepository.saveAndFlush(user);
+
+        List<Task> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            Task task = new Task("Task " + i, null, TaskStatus.PENDING);
+            task.setUser(user);
+            tasks.add(task);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        taskRepository.saveAll(tasks);
+        entityManager.flush();
+
+        assertEquals(TASKS, statistics.getEntityInsertCount());
+        // Вставки идут батчами по 50, ID — блоками по 50 из последовательности;
+        // при IDENTITY было бы не меньше 1000 отдельных операторов
+        long expected = TASKS / BATCH_SIZE + TASKS / ALLOCATION_SIZE;
+        long prepared = statistics.getPrepareStatementCount();
+        assertTrue(prepared <= expected + 2, "Expected about " + expected + " statements, got " + prepared);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.config.EntityCacheConfig;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.service.TaskListCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет кэш списков задач {@link TaskListCache} и кэш второго уровня для сущностей.
+ * Каждый шаг выполняется в своей транзакции, как в приложении, поэтому контекст
+ * персистентности между чтениями не сохраняется и попадания идут только из кэшей.
+ */
+@DataJpaTest
+@Import({EntityCacheConfig.class, TaskListCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskEntityCacheTest {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskListCache taskListCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    private Statistics statistics;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = transaction.execute(status -> {
+            User user = new User();
+            user.setUsername("cached");
+            user.setPassword("secret");
+            user = userRepository.save(user);
+            for (int i = 0; i < 3; i++) {
+                Task task = new Task("Task " + i, null, TaskStatus.PENDING);
+                task.setUser(user);
+                task.setOrderIndex(2 - i);
+                taskRepository.save(task);
+            }
+            return user;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transaction.executeWithoutResult(status -> {
+            taskRepository.deleteAll();
+            userRepository.deleteAll();
+        });
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void repeatedListRead_ShouldIssueNoSql() {
+        statistics.clear();
+        List<String> first = readTitles();
+        assertEquals(List.of("Task 2", "Task 1", "Task 0"), first);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        // Список читается проекцией: ни одна сущность не создается
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        statistics.clear();
+        List<String> second = readTitles();
+
+        assertEquals(first, second);
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void taskEvent_ShouldReloadList() {
+        readTitles();
+        taskListCache.onTaskEvent(TaskEvent.reordered(owner.getId()));
+
+        statistics.clear();
+        readTitles();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findById_ShouldBeServedFromSecondLevelCache() {
+        Long taskId = firstTaskId();
+        transaction.executeWithoutResult(status -> taskRepository.findById(taskId).orElseThrow());
+
+        statistics.clear();
+        String title = transaction.execute(status -> taskRepository.findById(taskId).orElseThrow().getTitle());
+
+        assertEquals("Task 2", title);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void updateOrderIndexes_ShouldEvictReorderedTasksAfterCommit() {
+        Long taskId = firstTaskId();
+        transaction.executeWithoutResult(status -> taskRepository.findById(taskId).orElseThrow());
+
+        transaction.executeWithoutResult(status ->
+                taskRepository.updateOrderIndexes(owner, List.of(taskId), List.of(100), 1));
+
+        Integer orderIndex = transaction.execute(status -> taskRepository.findById(taskId).orElseThrow().getOrderIndex());
+        assertEquals(100, orderIndex);
+    }
+
+    @Test
+    void changeCounterUpdate_ShouldKeepEntityCache() {
+        Long taskId = firstTaskId();
+        transaction.executeWithoutResult(status -> taskRepository.findById(taskId).orElseThrow());
+        assertTrue(entityManagerFactory.getCache().contains(Task.class, taskId));
+
+        transaction.executeWithoutResult(status -> {
+            userRepository.incrementChangeSeq(owner.getId());
+            userRepository.raiseTombstoneFloor(owner.getId(), 5);
+        });
+
+        assertTrue(entityManagerFactory.getCache().contains(Task.class, taskId));
+    }
+
+    private Long firstTaskId() {
+        Long taskId = taskListCache.getTasks(owner.getId()).get(0).id();
+        entityManagerFactory.getCache().evictAll();
+        return taskId;
+    }
+
+    private List<String> readTitles() {
+        return taskListCache.getTasks(owner.getId()).stream().map(TaskView::title).toList();
+    }
+}
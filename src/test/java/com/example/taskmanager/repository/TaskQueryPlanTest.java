@@ -0,0 +1,264 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.model.TaskSortKey;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверяет планы выполнения всех запросов репозиториев на заполненной базе H2.
+ * Каждый метод репозитория вызывается, его SQL перехватывается и передается в EXPLAIN;
+ * тест падает, если какой-либо запрос читает таблицу полным сканированием.
+ * <p>
+ * База хранится в target/query-plan и заполняется один раз; размер задается
+ * свойством {@code queryplan.rows}: по умолчанию 50 000 задач, для проверки
+ * на объеме production — {@code mvn test -Dtest=TaskQueryPlanTest -Dqueryplan.rows=1000000}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/query-plan/taskdb",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.taskmanager.repository.TaskQueryPlanTest$SqlCapture"
+})
+class TaskQueryPlanTest {
+
+    private static final int ROWS = Integer.getInteger("queryplan.rows", 50_000);
+    private static final int TASKS_PER_USER = 1_000;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void seed() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            if (count(connection, "tasks") >= ROWS && count(connection, "task_tombstones") > 0) {
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM task_tombstones");
+                statement.execute("DELETE FROM tasks");
+                statement.execute("DELETE FROM users");
+            }
+            int users = Math.max(1, ROWS / TASKS_PER_USER);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO users (id, username, password, role) VALUES (?, ?, 'x', 'ROLE_USER')")) {
+                for (int u = 1; u <= users; u++) {
+                    insert.setLong(1, u);
+                    insert.setString(2, "user" + u);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            TaskStatus[] statuses = TaskStatus.values();
+            LocalDate baseDate = LocalDate.of(2024, 1, 1);
+            LocalDateTime baseTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO tasks"
+                    + " (id, title, description, status, due_date, order_index, user_id, created_at, change_seq)"
+                    + " VALUES (?, ?, NULL, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= ROWS; i++) {
+                    insert.setLong(1, i);
+                    insert.setString(2, "Task " + i);
+                    insert.setString(3, statuses[i % statuses.length].name());
+                    insert.setDate(4, i % 5 == 0 ? null : Date.valueOf(baseDate.plusDays(i % 365)));
+                    insert.setInt(5, (i % TASKS_PER_USER) * 1024);
+                    insert.setLong(6, (i - 1) % users + 1);
+                    insert.setTimestamp(7, Timestamp.valueOf(baseTime.plusMinutes(i)));
+                    insert.setLong(8, (i - 1) / users + 1);
+                    insert.addBatch();
+                    if (i % 10_000 == 0) {
+                        // Фиксируем порциями, иначе журнал незавершенной транзакции раздувает файл базы
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+            }
+            // Удаленные задачи: по одной на каждые десять существующих
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO task_tombstones"
+                    + " (task_id, user_id, change_seq, deleted_at) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= ROWS / 10; i++) {
+                    insert.setLong(1, ROWS + i);
+                    insert.setLong(2, (i - 1) % users + 1);
+                    insert.setLong(3, TASKS_PER_USER + (i - 1) / users + 1);
+                    insert.setTimestamp(4, Timestamp.valueOf(baseTime.plusMinutes(i)));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+            connection.commit();
+        }
+    }
+
+    @Test
+    void repositoryQueries_ShouldUseIndexes() throws SQLException {
+        User user = userRepository.findByUsername("user1").orElseThrow();
+        Long taskId = taskRepository.findOrderedIds(user).get(0);
+        TaskCursor cursor = new TaskCursor(2048, taskId);
+        List<Long> otherIds = taskRepository.findOrderedIds(user).subList(0, 20);
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+
+        calls.put("findByUsername", () -> userRepository.findByUsername("user2"));
+        calls.put("findById", () -> taskRepository.findById(taskId));
+        calls.put("findViewsByUserId", () -> taskRepository.findViewsByUserId(user.getId()));
+        calls.put("findViewsByIdIn", () -> taskRepository.findViewsByIdIn(otherIds));
+        calls.put("findByUserIsNull", () -> taskRepository.findByUserIsNull());
+        calls.put("findOrderIndex", () -> taskRepository.findOrderIndex(taskId, user));
+        calls.put("findOrderedIds", () -> taskRepository.findOrderedIds(user));
+        calls.put("countByStatus", () -> taskRepository.countByStatus(user.getId()));
+        calls.put("countOpenByDueDate", () -> taskRepository.countOpenByDueDate(user.getId(), TaskStatus.COMPLETED));
+        calls.put("streamByUserId", () -> {
+            try (Stream<?> tasks = taskRepository.streamByUserId(user.getId())) {
+                tasks.findFirst();
+            }
+        });
+        calls.put("findChanged", () -> taskRepository.findChanged(user.getId(), 500, 600));
+        calls.put("findSearchDocuments", () -> taskRepository.findSearchDocuments(taskId, Limit.of(500)));
+        calls.put("findSearchDocumentsByUserId",
+                () -> taskRepository.findSearchDocumentsByUserId(user.getId(), 0L, Limit.of(500)));
+        LocalDate dueDate = LocalDate.of(2024, 3, 1);
+        calls.put("findOpenDueDates",
+                () -> taskRepository.findOpenDueDates(dueDate, 0L, TaskStatus.COMPLETED, Limit.of(500)));
+        calls.put("findOpenDueDatesByUserId", () -> taskRepository.findOpenDueDatesByUserId(user.getId(),
+                dueDate, dueDate.plusDays(7), TaskStatus.COMPLETED));
+        calls.put("incrementChangeSeq", () -> userRepository.incrementChangeSeq(user.getId()));
+        calls.put("findChangeSeq", () -> userRepository.findChangeSeq(user.getId()));
+        calls.put("findTombstoneFloor", () -> userRepository.findTombstoneFloor(user.getId()));
+        calls.put("raiseTombstoneFloor", () -> userRepository.raiseTombstoneFloor(user.getId(), 10));
+        calls.put("findDeletedTaskIds", () -> tombstoneRepository.findDeletedTaskIds(user.getId(), 500, 1100));
+        LocalDateTime cutoff = LocalDateTime.of(2024, 1, 1, 1, 0);
+        calls.put("findFloorsDeletedBefore", () -> tombstoneRepository.findFloorsDeletedBefore(cutoff));
+        calls.put("deleteByDeletedAtBefore", () -> tombstoneRepository.deleteByDeletedAtBefore(cutoff));
+        calls.put("findPage", () -> {
+            for (TaskSortKey sortKey : TaskSortKey.values()) {
+                TaskCursor after = sortKey == TaskSortKey.ORDER_INDEX ? cursor : new TaskCursor(null, taskId);
+                for (TaskStatus status : new TaskStatus[] { null, TaskStatus.PENDING }) {
+                    taskRepository.findPage(user, status, sortKey, null, 20);
+                    taskRepository.findPage(user, status, sortKey, after, 20);
+                }
+            }
+        });
+
+        Map<String, List<String>> sqlByMethod = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> call : calls.entrySet()) {
+            SqlCapture.STATEMENTS.clear();
+            call.getValue().run();
+            sqlByMethod.put(call.getKey(), List.copyOf(SqlCapture.STATEMENTS));
+        }
+        // Запрос через JdbcTemplate не проходит через Hibernate, добавляем его явно
+        sqlByMethod.put("updateOrderIndexes", List.of(TaskRepositoryImpl.UPDATE_ORDER_SQL));
+
+        assertEquals(declaredQueryMethods(), sqlByMethod.keySet().stream()
+                .filter(name -> !name.equals("findById")).collect(Collectors.toSet()),
+                "Every repository query method must be covered by the plan check");
+
+        List<String> tableScans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (Map.Entry<String, List<String>> entry : sqlByMethod.entrySet()) {
+                assertFalse(entry.getValue().isEmpty(), entry.getKey() + " issued no SQL");
+                for (String sql : entry.getValue()) {
+                    String plan = explain(connection, sql);
+                    if (plan.contains(".tableScan")) {
+                        tableScans.add(entry.getKey() + ":\n" + plan);
+                    }
+                }
+            }
+        }
+        assertTrue(tableScans.isEmpty(), "Table scans found:\n" + String.join("\n\n", tableScans));
+    }
+
+    private static String explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                // Значение параметров не влияет на выбор индекса, важна лишь форма условия
+                statement.setObject(i, 1);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    private static Set<String> declaredQueryMethods() {
+        Set<String> names = new HashSet<>();
+        for (Class<?> repository : List.of(TaskRepository.class, TaskRepositoryCustom.class, UserRepository.class,
+                TaskTombstoneRepository.class)) {
+            Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> !method.isSynthetic() && !method.isDefault())
+                    .map(Method::getName)
+                    .forEach(names::add);
+        }
+        return names;
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Перехватывает SQL, который Hibernate отправляет в базу.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskSearchDocument;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskSortKey;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class TaskRepositoryTest {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+
+    private Task foreign;
+
+    @BeforeEach
+    void setUp() {
+        owner = new User();
+        owner.setUsername("owner");
+        owner.setPassword("secret");
+        owner = userRepository.save(owner);
+
+        User other = new User();
+        other.setUsername("other");
+        other.setPassword("secret");
+        other = userRepository.save(other);
+
+        for (int i = 0; i < 7; i++) {
+            Task task = new Task("Task " + i, null, i % 2 == 0 ? TaskStatus.PENDING : TaskStatus.COMPLETED);
+            task.setUser(owner);
+            task.setOrderIndex(6 - i);
+            // Каждая третья задача без срока — проверяем переход в диапазон NULL
+            task.setDueDate(i % 3 == 0 ? null : LocalDate.of(2024, 1, 10 - i));
+            taskRepository.save(task);
+        }
+        foreign = new Task("Foreign", null, TaskStatus.PENDING);
+        foreign.setUser(other);
+        foreign.setOrderIndex(42);
+        foreign = taskRepository.save(foreign);
+    }
+
+    @Test
+    void findPage_ShouldWalkAllTasksInKeyOrder() {
+        List<TaskView> seen = readAll(null, TaskSortKey.DUE_DATE, 2);
+
+        assertEquals(7, seen.size());
+        assertTrue(seen.stream().noneMatch(t -> t.id().equals(foreign.getId())));
+        for (int i = 1; i < 4; i++) {
+            assertTrue(seen.get(i - 1).dueDate().isBefore(seen.get(i).dueDate()));
+        }
+        // Задачи без срока идут в конце, упорядоченные по ID
+        assertTrue(seen.subList(4, 7).stream().allMatch(t -> t.dueDate() == null));
+        assertTrue(seen.get(4).id() < seen.get(5).id());
+    }
+
+    @Test
+    void findPage_ShouldFilterByStatus() {
+        List<TaskView> seen = readAll(TaskStatus.COMPLETED, TaskSortKey.ORDER_INDEX, 2);
+
+        assertEquals(3, seen.size());
+        assertTrue(seen.stream().allMatch(t -> t.status() == TaskStatus.COMPLETED));
+        assertEquals(List.of(1, 3, 5), seen.stream().map(TaskView::orderIndex).toList());
+    }
+
+    @Test
+    void findViewsByUserId_ShouldReturnOwnTasksInDisplayOrder() {
+        List<TaskView> views = taskRepository.findViewsByUserId(owner.getId());
+
+        assertEquals(taskRepository.findOrderedIds(owner), views.stream().map(TaskView::id).toList());
+        assertEquals("Task 6", views.get(0).title());
+        assertNotNull(views.get(0).createdAt());
+        assertEquals(List.of(foreign.getId()),
+                taskRepository.findViewsByIdIn(List.of(foreign.getId())).stream().map(TaskView::id).toList());
+    }
+
+    @Test
+    void updateOrderIndexes_ShouldSkipTasksOfOtherUsers() {
+        List<Long> ids = new ArrayList<>(taskRepository.findOrderedIds(owner));
+        java.util.Collections.reverse(ids);
+        ids.add(foreign.getId());
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            indexes.add(i);
+        }
+
+        int updated = taskRepository.updateOrderIndexes(owner, ids, indexes, 5);
+
+        // Средняя задача остается на своем месте и не обновляется
+        assertEquals(6, updated);
+        assertEquals(6, taskRepository.findChanged(owner.getId(), 0, 5).size());
+        assertEquals(ids.subList(0, 7), taskRepository.findOrderedIds(owner));
+        assertEquals(42, taskRepository.findOrderIndex(foreign.getId(), foreign.getUser()).orElseThrow());
+    }
+
+    @Test
+    void countQueries_ShouldGroupOwnerTasks() {
+        List<TaskRepository.StatusCount> byStatus = taskRepository.countByStatus(owner.getId());
+        List<TaskRepository.DueDateCount> byDueDate =
+                taskRepository.countOpenByDueDate(owner.getId(), TaskStatus.COMPLETED);
+
+        assertEquals(7, byStatus.stream().mapToLong(TaskRepository.StatusCount::getTotal).sum());
+        assertEquals(4, byStatus.stream().filter(c -> c.getStatus() == TaskStatus.PENDING)
+                .findFirst().orElseThrow().getTotal());
+        // Незавершенные задачи со сроком: i = 2, 4
+        assertEquals(2, byDueDate.stream().mapToLong(TaskRepository.DueDateCount::getTotal).sum());
+    }
+
+    @Test
+    void findOrderedIds_ShouldBreakIndexTiesById() {
+        Task first = new Task("Tie 1", null, TaskStatus.PENDING);
+        first.setUser(owner);
+        first.setOrderIndex(3);
+        first = taskRepository.save(first);
+        Task second = new Task("Tie 2", null, TaskStatus.PENDING);
+        second.setUser(owner);
+        second.setOrderIndex(3);
+        second = taskRepository.save(second);
+
+        List<Long> ids = taskRepository.findOrderedIds(owner);
+        List<Long> streamed;
+        try (Stream<Task> stream = taskRepository.streamByUserId(owner.getId())) {
+            streamed = stream.map(Task::getId).toList();
+        }
+
+        assertEquals(9, ids.size());
+        assertEquals(ids, streamed);
+        int position = ids.indexOf(first.getId());
+        // Задачи с одинаковым индексом идут по возрастанию ID
+        assertEquals(List.of(first.getId(), second.getId()), ids.subList(position, position + 2));
+    }
+
+    @Test
+    void findSearchDocuments_ShouldPageByIdAcrossUsers() {
+        List<TaskSearchDocument> firstPage = taskRepository.findSearchDocuments(0L, Limit.of(5));
+        List<TaskSearchDocument> rest = taskRepository.findSearchDocuments(firstPage.get(4).id(), Limit.of(100));
+        List<TaskSearchDocument> foreignOnly =
+                taskRepository.findSearchDocumentsByUserId(foreign.getUser().getId(), 0L, Limit.of(100));
+
+        assertEquals(5, firstPage.size());
+        assertEquals(3, rest.size());
+        assertTrue(firstPage.get(4).id() < rest.get(0).id());
+        assertEquals(List.of(foreign.getId()), foreignOnly.stream().map(TaskSearchDocument::id).toList());
+        assertEquals("Foreign", foreignOnly.get(0).title());
+    }
+
+    private List<TaskView> readAll(TaskStatus status, TaskSortKey sortKey, int pageSize) {
+        List<TaskView> seen = new ArrayList<>();
+        TaskCursor cursor = null;
+        List<TaskView> page;
+        do {
+            page = taskRepository.findPage(owner, status, sortKey, cursor, pageSize);
+            seen.addAll(page);
+            if (!page.isEmpty()) {
+                // Курсор проходит через кодирование, как при обращении клиента
+                cursor = TaskCursor.decode(sortKey, TaskCursor.after(sortKey, page.get(page.size() - 1)).encode());
+            }
+        } while (page.size() == pageSize);
+        return seen;
+    }
+}
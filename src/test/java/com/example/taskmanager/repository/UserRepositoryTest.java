@@ -0,0 +1,50 @@
+package com.example.taskmanager.repository;
+
+import com.example.taskmanager.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("Alice");
+        user.setPassword("secret");
+        user = userRepository.saveAndFlush(user);
+    }
+
+    @Test
+    void findByUsername_ShouldBeCaseSensitive() {
+        assertTrue(userRepository.findByUsername("Alice").isPresent());
+        assertTrue(userRepository.findByUsername("alice").isEmpty());
+    }
+
+    @Test
+    void incrementChangeSeq_ShouldReturnIncreasingNumbers() {
+        assertEquals(0, userRepository.findChangeSeq(user.getId()));
+
+        assertEquals(1, userRepository.incrementChangeSeq(user.getId()));
+        assertEquals(1, userRepository.incrementChangeSeq(user.getId()));
+
+        assertEquals(2, userRepository.findChangeSeq(user.getId()));
+    }
+
+    @Test
+    void raiseTombstoneFloor_ShouldNeverLowerIt() {
+        assertEquals(1, userRepository.raiseTombstoneFloor(user.getId(), 10));
+        assertEquals(0, userRepository.raiseTombstoneFloor(user.getId(), 5));
+
+        assertEquals(10, userRepository.findTombstoneFloor(user.getId()));
+    }
+}
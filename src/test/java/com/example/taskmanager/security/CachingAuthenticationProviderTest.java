@@ -0,0 +1,128 @@
+package com.example.taskmanager.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingAuthenticationProviderTest {
+
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+    private final AtomicInteger passwordChecks = new AtomicInteger();
+    private final AtomicInteger userLoads = new AtomicInteger();
+    private final Map<String, CachedUser> users = new HashMap<>();
+    private final InMemorySharedUserCache shared = new InMemorySharedUserCache();
+
+    private TieredUserCache userCache;
+    private VerifiedCredentialCache verifiedCredentials;
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder countingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                passwordChecks.incrementAndGet();
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+        UserDetailsService userDetailsService = username -> {
+            userLoads.incrementAndGet();
+            return users.get(username).toPrincipal();
+        };
+        users.put("api", new CachedUser(7L, "api", bcrypt.encode("secret"), "ROLE_USER"));
+
+        userCache = new TieredUserCache(true, 100, Duration.ofMinutes(1), shared);
+        verifiedCredentials = new VerifiedCredentialCache(true, 100, Duration.ofMinutes(1));
+        provider = new CachingAuthenticationProvider(countingEncoder, verifiedCredentials);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserCache(userCache);
+    }
+
+    @Test
+    void repeatedLogin_ShouldSkipUserLoadAndBcrypt() {
+        authenticate("api", "secret");
+        Authentication second = authenticate("api", "secret");
+
+        assertEquals(1, userLoads.get());
+        assertEquals(1, passwordChecks.get());
+        assertEquals(7L, ((UserPrincipal) second.getPrincipal()).getId());
+    }
+
+    @Test
+    void wrongPassword_ShouldAlwaysBeChecked() {
+        authenticate("api", "secret");
+
+        assertThrows(BadCredentialsException.class, () -> authenticate("api", "wrong"));
+        assertThrows(BadCredentialsException.class, () -> authenticate("api", "wrong"));
+        // Первый вход и по одной проверке на кэшированном и перезагруженном пользователе для каждой ошибки
+        assertEquals(5, passwordChecks.get());
+    }
+
+    @Test
+    void erasedPrincipal_ShouldNotCorruptCache() {
+        Authentication first = authenticate("api", "secret");
+        ((CredentialsContainer) first).eraseCredentials();
+
+        authenticate("api", "secret");
+
+        assertEquals(1, userLoads.get());
+    }
+
+    @Test
+    void passwordChange_ShouldRejectOldPasswordAfterEviction() {
+        authenticate("api", "secret");
+        users.put("api", new CachedUser(7L, "api", bcrypt.encode("changed"), "ROLE_USER"));
+        userCache.removeUserFromCache("api");
+        verifiedCredentials.invalidate("api");
+
+        assertThrows(BadCredentialsException.class, () -> authenticate("api", "secret"));
+        assertNotNull(authenticate("api", "changed"));
+    }
+
+    @Test
+    void verifiedCredential_ShouldNotOutliveHashChange() {
+        String oldHash = users.get("api").password();
+        verifiedCredentials.remember("api", "secret", oldHash);
+
+        assertTrue(verifiedCredentials.isVerified("api", "secret", oldHash));
+        assertFalse(verifiedCredentials.isVerified("api", "secret", bcrypt.encode("secret")));
+        assertFalse(verifiedCredentials.isVerified("api", "other", oldHash));
+        assertFalse(verifiedCredentials.isVerified("ap", "isecret", oldHash));
+    }
+
+    @Test
+    void localMiss_ShouldBeFilledFromSharedTier() {
+        authenticate("api", "secret");
+        // Другой узел: свой первый уровень, общий второй
+        TieredUserCache otherNode = new TieredUserCache(true, 100, Duration.ofMinutes(1), shared);
+
+        UserPrincipal user = (UserPrincipal) otherNode.getUserFromCache("api");
+
+        assertEquals(7L, user.getId());
+        assertEquals(users.get("api").password(), user.getPassword());
+        otherNode.removeUserFromCache("api");
+        assertNull(shared.get("api"));
+    }
+
+    private Authentication authenticate(String username, String password) {
+        return provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(username, password));
+    }
+}
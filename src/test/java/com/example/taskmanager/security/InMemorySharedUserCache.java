@@ -0,0 +1,27 @@
+package com.example.taskmanager.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Общий уровень кэша пользователей в памяти вместо внешнего хранилища.
+ */
+class InMemorySharedUserCache implements SharedUserCache {
+
+    final Map<String, CachedUser> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public CachedUser get(String username) {
+        return entries.get(username);
+    }
+
+    @Override
+    public void put(CachedUser user) {
+        entries.put(user.username(), user);
+    }
+
+    @Override
+    public void evict(String username) {
+        entries.remove(username);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.taskmanager.security;
+
+import com.example.taskmanager.config.SchedulingConfig;
+import com.example.taskmanager.config.SecurityConfig;
+import com.example.taskmanager.config.TokenSecurityConfig;
+import com.example.taskmanager.controller.TaskController;
+import com.example.taskmanager.controller.TokenAuthController;
+import com.example.taskmanager.dto.TokenResponse;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.service.AuthTokenService;
+import com.example.taskmanager.service.TaskService;
+import com.example.taskmanager.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = { TaskController.class, TokenAuthController.class })
+@Import({ SecurityConfig.class, TokenSecurityConfig.class, SchedulingConfig.class })
+@TestPropertySource(properties = "app.auth.tokens.enabled=true")
+class TokenAuthenticationFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @MockBean
+    private TaskService taskService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private AuthTokenService authTokenService;
+
+    @Test
+    void bearerToken_ShouldAuthenticateWithoutSession() throws Exception {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("api");
+        user.setPassword("hash");
+        when(taskService.getAllTasks()).thenReturn(List.of());
+
+        MvcResult result = mockMvc.perform(get("/api/tasks")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.issueAccessToken(user)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+        verify(taskService).getAllTasks();
+    }
+
+    @Test
+    void invalidBearerToken_ShouldReturnUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/tasks").header(HttpHeaders.AUTHORIZATION, "Bearer broken.token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void requestWithoutToken_ShouldStillUseFormLogin() throws Exception {
+        mockMvc.perform(get("/api/tasks"))
+                .andExpect(status().is3xxRedirection());
+    }
+
+    @Test
+    void login_ShouldIssueTokensWithoutSession() throws Exception {
+        when(authTokenService.login("api", "secret"))
+                .thenReturn(new TokenResponse("access", "refresh", "Bearer", 900));
+
+        MvcResult result = mockMvc.perform(post("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"api\",\"password\":\"secret\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("access"))
+                .andExpect(jsonPath("$.expiresIn").value(900))
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.taskmanager.security;
+
+import com.example.taskmanager.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+
+    private TokenService tokenService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new TokenService(SECRET, Duration.ofMinutes(15), Duration.ofDays(7),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        user = new User();
+        user.setId(42L);
+        user.setUsername("пользователь");
+        user.setPassword("$2a$10$hash");
+        user.setRole("ROLE_ADMIN");
+    }
+
+    @Test
+    void verifyAccessToken_ShouldReturnClaims() {
+        TokenClaims claims = tokenService.verifyAccessToken(tokenService.issueAccessToken(user));
+
+        assertNotNull(claims);
+        assertEquals(42L, claims.userId());
+        assertEquals("пользователь", claims.username());
+        assertEquals("ROLE_ADMIN", claims.role());
+        assertEquals(NOW.plus(Duration.ofMinutes(15)).getEpochSecond(), claims.expiresAt());
+    }
+
+    @Test
+    void verifyAccessToken_ShouldRejectTamperedTokens() {
+        String token = tokenService.issueAccessToken(user);
+        int dot = token.indexOf('.');
+        char first = token.charAt(0);
+        String tamperedPayload = (first == 'A' ? 'B' : 'A') + token.substring(1);
+        char last = token.charAt(token.length() - 1);
+        String tamperedSignature = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertNull(tokenService.verifyAccessToken(tamperedPayload));
+        assertNull(tokenService.verifyAccessToken(tamperedSignature));
+        assertNull(tokenService.verifyAccessToken(token.substring(0, dot)));
+        assertNull(tokenService.verifyAccessToken("not-a-token"));
+        assertNull(tokenService.verifyAccessToken(null));
+    }
+
+    @Test
+    void verifyAccessToken_ShouldRejectTokensSignedWithAnotherKey() {
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+        TokenService other = new TokenService(Base64.getEncoder().encodeToString(otherKey),
+                Duration.ofMinutes(15), Duration.ofDays(7), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertNull(tokenService.verifyAccessToken(other.issueAccessToken(user)));
+    }
+
+    @Test
+    void verifyAccessToken_ShouldRejectExpiredTokens() {
+        String token = tokenService.issueAccessToken(user);
+        TokenService later = new TokenService(SECRET, Duration.ofMinutes(15), Duration.ofDays(7),
+                Clock.fixed(NOW.plus(Duration.ofMinutes(15)), ZoneOffset.UTC));
+
+        assertNull(later.verifyAccessToken(token));
+    }
+
+    @Test
+    void tokenTypes_ShouldNotBeInterchangeable() {
+        assertNull(tokenService.verifyAccessToken(tokenService.issueRefreshToken(user)));
+        assertNull(tokenService.verifyRefreshToken(tokenService.issueAccessToken(user)));
+    }
+
+    @Test
+    void refreshToken_ShouldStopMatchingAfterPasswordChange() {
+        TokenClaims claims = tokenService.verifyRefreshToken(tokenService.issueRefreshToken(user));
+        assertNotNull(claims);
+        assertTrue(tokenService.matchesPassword(claims, user));
+
+        user.setPassword("$2a$10$other");
+
+        assertFalse(tokenService.matchesPassword(claims, user));
+    }
+
+    @Test
+    void constructor_ShouldRejectShortSecret() {
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[16]);
+
+        assertThrows(IllegalArgumentException.class, () -> new TokenService(shortSecret,
+                Duration.ofMinutes(15), Duration.ofDays(7), Clock.systemUTC()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.event.TaskDueEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Получатель напоминаний, который складывает их в память вместо отправки.
+ */
+class InMemoryDueDateNotifier implements DueDateNotifier {
+
+    final List<TaskDueEvent> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void deliver(TaskDueEvent event) {
+        events.add(event);
+    }
+
+    /**
+     * @return Напоминания, полученные после предыдущего вызова
+     */
+    List<TaskDueEvent> drain() {
+        List<TaskDueEvent> drained = new ArrayList<>(events);
+        events.clear();
+        return drained;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskDueDate;
+import com.example.taskmanager.event.TaskDueEvent;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskDueDateServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ObjectProvider<DueDateNotifier> notifierProvider;
+
+    private final InMemoryDueDateNotifier notifier = new InMemoryDueDateNotifier();
+
+    private final MutableClock clock = new MutableClock(TODAY);
+
+    /**
+     * Незавершенные задачи в базе; репозиторий читает их так же, как запрос по индексу (due_date, id).
+     */
+    private final List<TaskDueDate> openTasks = new ArrayList<>();
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(1L);
+        lenient().when(notifierProvider.orderedStream()).thenAnswer(invocation -> Stream.of(notifier));
+        when(taskRepository.findOpenDueDates(any(), any(), eq(TaskStatus.COMPLETED), any())).thenAnswer(invocation -> {
+            LocalDate dueDate = invocation.getArgument(0);
+            Long afterId = invocation.getArgument(1);
+            Limit limit = invocation.getArgument(3);
+            return openTasks.stream()
+                    .filter(task -> task.dueDate().equals(dueDate) && task.id() > afterId)
+                    .sorted(Comparator.comparing(TaskDueDate::id))
+                    .limit(limit.max())
+                    .toList();
+        });
+    }
+
+    @Test
+    void check_ShouldLoadWindowByDayAndSendRemindersWhenDue() {
+        openTasks.add(new TaskDueDate(1L, 1L, TODAY.minusDays(2)));
+        openTasks.add(new TaskDueDate(2L, 1L, TODAY.minusDays(1)));
+        openTasks.add(new TaskDueDate(3L, 1L, TODAY.plusDays(1)));
+        openTasks.add(new TaskDueDate(4L, 2L, TODAY.plusDays(1)));
+        openTasks.add(new TaskDueDate(5L, 2L, TODAY.plusDays(1)));
+        openTasks.add(new TaskDueDate(6L, 1L, TODAY.plusDays(2)));
+        openTasks.add(new TaskDueDate(7L, 1L, TODAY.plusDays(5)));
+        TaskDueDateService service = newService();
+
+        service.start();
+        service.check();
+
+        // Окно — от вчера (catch-up) до послезавтра (due-soon + horizon); три задачи одного дня читаются двумя порциями
+        verify(taskRepository, times(4)).findOpenDueDates(any(), eq(0L), eq(TaskStatus.COMPLETED), any());
+        verify(taskRepository).findOpenDueDates(eq(TODAY.plusDays(1)), eq(4L), eq(TaskStatus.COMPLETED), any());
+        assertEquals(List.of(
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 2L, TODAY.minusDays(1)),
+                new TaskDueEvent(TaskDueEvent.Type.DUE_SOON, 1L, 3L, TODAY.plusDays(1)),
+                new TaskDueEvent(TaskDueEvent.Type.DUE_SOON, 2L, 4L, TODAY.plusDays(1)),
+                new TaskDueEvent(TaskDueEvent.Type.DUE_SOON, 2L, 5L, TODAY.plusDays(1))), notifier.drain());
+        assertEquals(4, service.getScheduledCount());
+
+        service.check();
+        assertTrue(notifier.drain().isEmpty());
+
+        clock.setDate(TODAY.plusDays(2));
+        service.check();
+
+        // Каждый новый день окна читается из базы один раз
+        verify(taskRepository, times(1)).findOpenDueDates(eq(TODAY.plusDays(2)), eq(0L), any(), any());
+        verify(taskRepository, never()).findOpenDueDates(eq(TODAY.plusDays(5)), any(), any(), any());
+        assertEquals(List.of(
+                new TaskDueEvent(TaskDueEvent.Type.DUE_SOON, 1L, 6L, TODAY.plusDays(2)),
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 1L, 3L, TODAY.plusDays(1)),
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 2L, 4L, TODAY.plusDays(1)),
+                new TaskDueEvent(TaskDueEvent.Type.OVERDUE, 2L, 5L, TODAY.plusDays(1))), notifier.drain());
+        assertEquals(1, service.getScheduledCount());
+    }
+
+    @Test
+    void onTaskEvent_ShouldRescheduleWithoutReadingDatabase() {
+        TaskDueDateService service = newService();
+        service.start();
+        clearInvocations(taskRepository);
+
+        Task task = task(10L, TaskStatus.PENDING, TODAY.plusDays(10));
+        service.onTaskEvent(TaskEvent.created(task));
+        assertEquals(0, service.getScheduledCount());
+
+        task.setDueDate(TODAY.plusDays(1));
+        service.onTaskEvent(TaskEvent.updated(task, TaskStatus.PENDING, TODAY.plusDays(10)));
+        assertEquals(1, service.getScheduledCount());
+        service.check();
+        assertEquals(List.of(new TaskDueEvent(TaskDueEvent.Type.DUE_SOON, 1L, 10L, TODAY.plusDays(1))),
+                notifier.drain());
+
+        // Изменение без нового срока не повторяет напоминание
+        task.setTitle("Renamed");
+        service.onTaskEvent(TaskEvent.updated(task, TaskStatus.PENDING, TODAY.plusDays(1)));
+        service.check();
+        assertTrue(notifier.drain().isEmpty());
+
+        task.setStatus(TaskStatus.COMPLETED);
+        service.onTaskEvent(TaskEvent.updated(task, TaskStatus.PENDING, TODAY.plusDays(1)));
+        assertEquals(0, service.getScheduledCount());
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void check_ShouldDeliverToRemainingNotifiersWhenOneFails() {
+        DueDateNotifier failing = mock(DueDateNotifier.class);
+        doThrow(new IllegalStateException("mail server is down")).when(failing).deliver(any());
+        when(notifierProvider.orderedStream()).thenAnswer(invocation -> Stream.of(failing, notifier));
+        openTasks.add(new TaskDueDate(1L, 1L, TODAY));
+        TaskDueDateService service = newService();
+
+        service.start();
+        service.check();
+
+        verify(failing).deliver(new TaskDueEvent(TaskDueEvent.Type.DUE_SOON, 1L, 1L, TODAY));
+        assertEquals(List.of(new TaskDueEvent(TaskDueEvent.Type.DUE_SOON, 1L, 1L, TODAY)), notifier.drain());
+    }
+
+    private TaskDueDateService newService() {
+        return new TaskDueDateService(taskRepository, clock, notifierProvider, true,
+                Duration.ofDays(1), Duration.ofDays(1), Duration.ofDays(1), 2);
+    }
+
+    private Task task(Long id, TaskStatus status, LocalDate dueDate) {
+        Task task = new Task("Task " + id, null, status);
+        task.setId(id);
+        task.setUser(user);
+        task.setDueDate(dueDate);
+        return task;
+    }
+
+    /**
+     * Часы, которые тест переводит на нужный день.
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(LocalDate date) {
+            setDate(date);
+        }
+
+        void setDate(LocalDate date) {
+            instant = date.atStartOfDay().toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
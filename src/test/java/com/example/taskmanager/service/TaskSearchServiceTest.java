@@ -0,0 +1,110 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskSearchDocument;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskSearchServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    private TaskSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        searchService = new TaskSearchService(taskRepository, "", 2, Duration.ofSeconds(1));
+        searchService.index(List.of(
+                new TaskSearchDocument(1L, 1L, "Подготовить отчёт", "Квартальные показатели продаж"),
+                new TaskSearchDocument(2L, 1L, "Позвонить клиенту", "Обсудить отчет и сроки"),
+                new TaskSearchDocument(3L, 2L, "Отчет по задачам", null),
+                new TaskSearchDocument(4L, 1L, "Купить молоко", null)));
+        searchService.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchService.close();
+    }
+
+    @Test
+    void search_ShouldMatchRussianWordFormsAndYo() {
+        assertEquals(List.of(1L, 2L), searchService.search(1L, "отчеты", 10));
+        assertEquals(List.of(1L, 2L), searchService.search(1L, "ОТЧЁТ", 10));
+        assertEquals(List.of(1L), searchService.search(1L, "показателям продаж", 10));
+    }
+
+    @Test
+    void search_ShouldRankTitleMatchesFirst() {
+        assertEquals(1L, searchService.search(1L, "отчет", 10).get(0));
+    }
+
+    @Test
+    void search_ShouldTreatLastWordAsPrefix() {
+        assertEquals(List.of(1L), searchService.search(1L, "подгот", 10));
+        assertEquals(List.of(2L), searchService.search(1L, "отчет кли", 10));
+        assertTrue(searchService.search(1L, "кли отчет", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldReturnOnlyUserTasks() {
+        assertEquals(List.of(3L), searchService.search(2L, "отчет", 10));
+        assertTrue(searchService.search(1L, "задачам", 10).isEmpty());
+    }
+
+    @Test
+    void search_BlankQuery_ShouldReturnNothing() {
+        assertTrue(searchService.search(1L, " , ", 10).isEmpty());
+    }
+
+    @Test
+    void onTaskEvent_ShouldUpdateAndRemoveTasks() {
+        User user = new User();
+        user.setId(1L);
+        Task task = new Task("Купить хлеб", null, TaskStatus.PENDING);
+        task.setId(4L);
+        task.setUser(user);
+
+        searchService.onTaskEvent(TaskEvent.updated(task, TaskStatus.PENDING, null));
+        searchService.refresh();
+        assertEquals(List.of(4L), searchService.search(1L, "хлеб", 10));
+        assertTrue(searchService.search(1L, "молоко", 10).isEmpty());
+
+        searchService.onTaskEvent(TaskEvent.deleted(task));
+        searchService.refresh();
+        assertTrue(searchService.search(1L, "хлеб", 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_ShouldIndexAllTasksInBatches() {
+        when(taskRepository.findSearchDocuments(eq(0L), any(Limit.class))).thenReturn(List.of(
+                new TaskSearchDocument(10L, 1L, "Сдать проект", null),
+                new TaskSearchDocument(11L, 1L, "Проверить проект", null)));
+        when(taskRepository.findSearchDocuments(eq(11L), any(Limit.class))).thenReturn(List.of(
+                new TaskSearchDocument(12L, 1L, "Закрыть проекты", null)));
+
+        searchService.rebuild();
+
+        assertTrue(searchService.isReady());
+        assertEquals(3, searchService.search(1L, "проект", 10).size());
+    }
+}
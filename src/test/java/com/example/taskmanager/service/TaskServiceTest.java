@@ -1,26 +1,42 @@
 package com.example.taskmanager.service;
 
+import com.example.taskmanager.dto.TaskCursor;
+import com.example.taskmanager.dto.TaskPage;
+import com.example.taskmanager.dto.TaskRequest;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.exception.FeatureDisabledException;
 import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskSortKey;
 import com.example.taskmanager.model.TaskStatus;
 import com.example.taskmanager.model.User;
 import com.example.taskmanager.repository.TaskRepository;
 import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.security.UserPrincipal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,19 +48,52 @@ class TaskServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserLookupCache userLookupCache;
+
+    @Mock
+    private TaskListCache taskListCache;
+
+    @Mock
+    private TaskStatsService taskStatsService;
+
+    @Mock
+    private TaskTransferService taskTransferService;
+
+    @Mock
+    private TaskVersionService taskVersionService;
+
+    @Mock
+    private TaskSyncService taskSyncService;
+
+    @Mock
+    private TaskStreamService taskStreamService;
+
+    @Mock
+    private TaskSearchService taskSearchService;
+
+    @Mock
+    private TaskWriteBehindService taskWriteBehindService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @Mock
     private SecurityContext securityContext;
 
     @Mock
     private Authentication authentication;
 
-    @InjectMocks
     private TaskService taskService;
 
     private User testUser;
 
     @BeforeEach
     void setUp() {
+        taskService = newTaskService(taskSearchService);
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
@@ -57,76 +106,389 @@ class TaskServiceTest {
         SecurityContextHolder.setContext(securityContext);
 
         when(authentication.getName()).thenReturn("testuser");
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(userLookupCache.get("testuser")).thenReturn(testUser);
+
+        when(taskListCache.getTasks(1L)).thenReturn(List.of(view(20L, 0), view(10L, 1024)));
+
+        List<TaskView> tasks = taskService.getAllTasks();
 
-        Task task1 = new Task();
-        task1.setTitle("Task 1");
-        Task task2 = new Task();
-        task2.setTitle("Task 2");
-        when(taskRepository.findByUser(testUser)).thenReturn(Arrays.asList(task1, task2));
+        assertEquals(List.of(20L, 10L), tasks.stream().map(TaskView::id).toList());
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getAllTasks_ShouldUseUserIdFromPrincipalWithoutLookup() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
 
-        List<Task> tasks = taskService.getAllTasks();
+        taskService.getAllTasks();
 
-        assertEquals(2, tasks.size());
-        verify(taskRepository).findByUser(testUser);
+        verify(taskListCache).getTasks(1L);
+        verifyNoInteractions(userLookupCache);
+        verify(userRepository, never()).findByUsername(any());
     }
 
     @Test
-    void createTask_ShouldSetUserAndDefaultStatus() {
+    void searchTasks_ShouldKeepRelevanceOrderAndSkipDeletedTasks() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+
+        TaskView first = view(3L, 0);
+        TaskView second = view(5L, 0);
+        when(taskSearchService.search(1L, "отчет", TaskService.MAX_SEARCH_RESULTS)).thenReturn(List.of(5L, 9L, 3L));
+        when(taskRepository.findViewsByIdIn(List.of(5L, 9L, 3L))).thenReturn(List.of(first, second));
+
+        List<TaskView> found = taskService.searchTasks("отчет", 1000);
+
+        assertEquals(List.of(second, first), found);
+    }
+
+    @Test
+    void searchTasks_WhenSearchDisabled_ShouldFail() {
+        TaskService withoutSearch = newTaskService(null);
+
+        assertThrows(FeatureDisabledException.class, () -> withoutSearch.searchTasks("отчет", 10));
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getTasksPage_ShouldReturnCursorWhenMoreTasksExist() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getName()).thenReturn("testuser");
+        when(userLookupCache.get("testuser")).thenReturn(testUser);
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+
+        List<TaskView> fetched = List.of(view(1L, 10), view(2L, 20), view(3L, 30));
+        when(taskRepository.findPage(eq(testUser), isNull(), eq(TaskSortKey.ORDER_INDEX), isNull(), eq(3)))
+                .thenReturn(fetched);
+
+        TaskPage page = taskService.getTasksPage(null, TaskSortKey.ORDER_INDEX, null, 2);
+
+        assertEquals(2, page.items().size());
+        TaskCursor next = TaskCursor.decode(TaskSortKey.ORDER_INDEX, page.nextCursor());
+        assertEquals(20, next.value());
+        assertEquals(2L, next.id());
+    }
+
+    @Test
+    void createTask_ShouldSetUserAndDefaults() {
         // Mock Security Context for this test
         when(securityContext.getAuthentication()).thenReturn(authentication);
         SecurityContextHolder.setContext(securityContext);
 
         when(authentication.getName()).thenReturn("testuser");
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(userLookupCache.get("testuser")).thenReturn(testUser);
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
         when(taskRepository.save(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
 
-        Task newTask = new Task();
-        newTask.setTitle("New Task");
-
-        Task createdTask = taskService.createTask(newTask);
+        TaskView created = taskService.createTask(new TaskRequest("New Task", null, null, null, null));
 
-        assertNotNull(createdTask.getUser());
-        assertEquals("testuser", createdTask.getUser().getUsername());
-        assertEquals(TaskStatus.PENDING, createdTask.getStatus());
-        verify(taskRepository).save(newTask);
+        assertEquals("New Task", created.title());
+        assertEquals(TaskStatus.PENDING, created.status());
+        assertEquals(0, created.orderIndex());
+        ArgumentCaptor<Task> saved = ArgumentCaptor.forClass(Task.class);
+        verify(taskRepository).save(saved.capture());
+        assertSame(testUser, saved.getValue().getUser());
     }
 
     @Test
     void updateTask_ShouldUpdateFields() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
         Long taskId = 1L;
         Task existingTask = new Task();
         existingTask.setId(taskId);
         existingTask.setTitle("Old Title");
         existingTask.setStatus(TaskStatus.PENDING);
+        existingTask.setUser(testUser);
 
-        Task updateDetails = new Task();
-        updateDetails.setTitle("New Title");
-        updateDetails.setDescription("New Desc");
-        updateDetails.setStatus(TaskStatus.IN_PROGRESS);
+        TaskRequest request = new TaskRequest("New Title", "New Desc", TaskStatus.IN_PROGRESS, null, null);
 
         when(taskRepository.findById(taskId)).thenReturn(Optional.of(existingTask));
         when(taskRepository.save(any(Task.class))).thenAnswer(i -> i.getArguments()[0]);
 
-        Task updatedTask = taskService.updateTask(taskId, updateDetails);
+        TaskView updatedTask = taskService.updateTask(taskId, request);
 
-        assertEquals("New Title", updatedTask.getTitle());
-        assertEquals("New Desc", updatedTask.getDescription());
-        assertEquals(TaskStatus.IN_PROGRESS, updatedTask.getStatus());
+        assertEquals("New Title", updatedTask.title());
+        assertEquals("New Desc", updatedTask.description());
+        assertEquals(TaskStatus.IN_PROGRESS, updatedTask.status());
+
+        ArgumentCaptor<TaskEvent> event = ArgumentCaptor.forClass(TaskEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(TaskEvent.Type.UPDATED, event.getValue().type());
+        assertEquals(TaskStatus.PENDING, event.getValue().previousStatus());
+        assertEquals(1L, event.getValue().userId());
+    }
+
+    @Test
+    void updateTask_WithWriteBehind_ShouldFlushBeforeOpeningTransaction() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+        when(taskWriteBehindService.isEnabled()).thenReturn(true);
+        Task task = new Task("Title", null, TaskStatus.PENDING);
+        task.setId(1L);
+        task.setUser(testUser);
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(task));
+        when(taskRepository.save(task)).thenReturn(task);
+
+        taskService.updateTask(1L, new TaskRequest("Renamed", null, null, null, null));
+
+        // Сброс очереди фиксируется сам; внутри транзакции запрос держал бы два соединения
+        InOrder order = inOrder(taskWriteBehindService, transactionManager, taskRepository);
+        order.verify(taskWriteBehindService).flush(1L);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(taskRepository).findById(1L);
     }
 
     @Test
     void updateTask_NotFound_ShouldThrowException() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
         Long taskId = 99L;
         when(taskRepository.findById(taskId)).thenReturn(Optional.empty());
 
-        assertThrows(RuntimeException.class, () -> taskService.updateTask(taskId, new Task()));
+        assertThrows(RuntimeException.class, () -> taskService.updateTask(taskId,
+                new TaskRequest("Title", null, null, null, null)));
+    }
+
+    @Test
+    void getTaskById_ShouldNotReturnTaskOfAnotherUser() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+        User owner = new User();
+        owner.setId(2L);
+        Task task = new Task("Foreign", null, TaskStatus.PENDING);
+        task.setId(5L);
+        task.setUser(owner);
+        when(taskRepository.findById(5L)).thenReturn(Optional.of(task));
+
+        assertTrue(taskService.getTaskById(5L).isEmpty());
     }
 
     @Test
     void deleteTask_ShouldCallRepository() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
         Long taskId = 1L;
+        Task task = new Task();
+        task.setId(taskId);
+        task.setUser(testUser);
+        when(taskRepository.findById(taskId)).thenReturn(Optional.of(task));
+        when(taskSyncService.nextChangeSeq(1L)).thenReturn(8L);
+
         taskService.deleteTask(taskId);
+
         verify(taskRepository).deleteById(taskId);
+        verify(taskSyncService).recordDeletion(task, 8L);
+    }
+
+    @Test
+    void deleteTask_ShouldIgnoreTaskOfAnotherUser() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+        when(taskRepository.findById(5L)).thenReturn(Optional.of(foreignTask()));
+
+        taskService.deleteTask(5L);
+
+        verify(taskRepository, never()).deleteById(any());
+        verifyNoInteractions(taskSyncService, eventPublisher);
+    }
+
+    @Test
+    void updateTask_ShouldRejectTaskOfAnotherUser() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+        Task foreign = foreignTask();
+        when(taskRepository.findById(5L)).thenReturn(Optional.of(foreign));
+
+        assertThrows(RuntimeException.class, () -> taskService.updateTask(5L,
+                new TaskRequest("Overwritten", null, TaskStatus.COMPLETED, null, null)));
+
+        assertEquals("Foreign", foreign.getTitle());
+        verify(taskRepository, never()).save(any());
+        verifyNoInteractions(taskSyncService, eventPublisher);
+    }
+
+    @Test
+    void updateTaskOrder_ShouldWriteSparseIndexesInOneBatch() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getName()).thenReturn("testuser");
+        when(userLookupCache.get("testuser")).thenReturn(testUser);
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+
+        when(taskSyncService.nextChangeSeq(1L)).thenReturn(3L);
+
+        taskService.updateTaskOrder(List.of(3L, 1L, 2L));
+
+        verify(taskRepository).updateOrderIndexes(testUser, List.of(3L, 1L, 2L),
+                List.of(0, TaskService.ORDER_GAP, 2 * TaskService.ORDER_GAP), 3L);
+        verify(taskRepository, never()).findById(any());
+    }
+
+    @Test
+    void updateTaskOrder_ShouldOnlyEnqueueInWriteBehindMode() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+        when(taskWriteBehindService.isEnabled()).thenReturn(true);
+
+        taskService.updateTaskOrder(List.of(3L, 1L, 2L));
+
+        verify(taskWriteBehindService).enqueueOrder(1L, List.of(3L, 1L, 2L));
+        verifyNoInteractions(taskRepository, taskSyncService, eventPublisher, transactionManager);
+    }
+
+    @Test
+    void updateTaskStatus_InWriteBehindMode_ShouldEnqueueOutsideTransaction() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+        when(taskWriteBehindService.isEnabled()).thenReturn(true);
+        Task task = new Task("Title", null, TaskStatus.PENDING);
+        task.setId(5L);
+        task.setUser(testUser);
+        when(taskRepository.findById(5L)).thenReturn(Optional.of(task));
+        // Ожидание fsync журнала не должно происходить внутри транзакции запроса
+        doAnswer(invocation -> {
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            return null;
+        }).when(taskWriteBehindService).enqueueStatus(1L, 5L, TaskStatus.COMPLETED);
+        when(taskWriteBehindService.merge(eq(1L), any(TaskView.class))).thenAnswer(invocation -> invocation.getArgument(1));
+
+        taskService.updateTaskStatus(5L, TaskStatus.COMPLETED);
+
+        verify(taskWriteBehindService).enqueueStatus(1L, 5L, TaskStatus.COMPLETED);
+        verifyNoInteractions(transactionManager, taskSyncService, eventPublisher);
+    }
+
+    @Test
+    void updateTaskStatus_InWriteBehindMode_ShouldRejectTaskOfAnotherUser() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+        when(taskWriteBehindService.isEnabled()).thenReturn(true);
+        User owner = new User();
+        owner.setId(2L);
+        Task task = new Task("Foreign", null, TaskStatus.PENDING);
+        task.setId(5L);
+        task.setUser(owner);
+        when(taskRepository.findById(5L)).thenReturn(Optional.of(task));
+
+        assertThrows(RuntimeException.class, () -> taskService.updateTaskStatus(5L, TaskStatus.COMPLETED));
+        verify(taskWriteBehindService, never()).enqueueStatus(any(), any(), any());
+    }
+
+    @Test
+    void writeBehindMethods_ShouldNotBeTransactional() throws NoSuchMethodException {
+        // Транзакция вокруг метода держала бы соединение пула, пока очередь ждет fsync журнала
+        assertNull(TaskService.class.getMethod("updateTaskStatus", Long.class, TaskStatus.class)
+                .getAnnotation(Transactional.class));
+        assertNull(TaskService.class.getMethod("updateTaskOrder", List.class).getAnnotation(Transactional.class));
+        assertNull(TaskService.class.getMethod("moveTask", Long.class, Long.class, Long.class)
+                .getAnnotation(Transactional.class));
+    }
+
+    @Test
+    void moveTask_ShouldEnqueueWholeOrderInWriteBehindMode() {
+        testUser.setPassword("hash");
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getPrincipal()).thenReturn(new UserPrincipal(testUser));
+        when(taskWriteBehindService.isEnabled()).thenReturn(true);
+        List<TaskView> tasks = List.of(view(1L, 0), view(2L, 1024), view(3L, 2048));
+        when(taskListCache.getTasks(1L)).thenReturn(tasks);
+        when(taskWriteBehindService.merge(1L, tasks)).thenReturn(tasks);
+
+        taskService.moveTask(3L, 1L, 2L);
+
+        verify(taskWriteBehindService).enqueueOrder(1L, List.of(1L, 3L, 2L));
+        verifyNoInteractions(taskRepository, transactionManager);
+    }
+
+    @Test
+    void moveTask_ShouldWriteSingleRowBetweenNeighbours() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getName()).thenReturn("testuser");
+        when(userLookupCache.get("testuser")).thenReturn(testUser);
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(taskRepository.findOrderIndex(5L, testUser)).thenReturn(Optional.of(4096));
+        when(taskRepository.findOrderIndex(1L, testUser)).thenReturn(Optional.of(0));
+        when(taskRepository.findOrderIndex(2L, testUser)).thenReturn(Optional.of(1024));
+
+        taskService.moveTask(5L, 1L, 2L);
+
+        verify(taskRepository).updateOrderIndexes(eq(testUser), eq(List.of(5L)), eq(List.of(512)), anyLong());
+        verify(taskRepository, never()).findOrderedIds(any());
+    }
+
+    @Test
+    void moveTask_ShouldRenumberWhenGapIsExhausted() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+        when(authentication.getName()).thenReturn("testuser");
+        when(userLookupCache.get("testuser")).thenReturn(testUser);
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(taskRepository.findOrderIndex(3L, testUser)).thenReturn(Optional.of(7));
+        when(taskRepository.findOrderIndex(1L, testUser)).thenReturn(Optional.of(5));
+        when(taskRepository.findOrderIndex(2L, testUser)).thenReturn(Optional.of(6));
+        when(taskRepository.findOrderedIds(testUser)).thenReturn(List.of(1L, 2L, 3L));
+
+        taskService.moveTask(3L, 1L, 2L);
+
+        verify(taskRepository).updateOrderIndexes(eq(testUser), eq(List.of(1L, 3L, 2L)),
+                eq(List.of(0, TaskService.ORDER_GAP, 2 * TaskService.ORDER_GAP)), anyLong());
+    }
+
+    private static TaskView view(Long id, int orderIndex) {
+        return new TaskView(id, "Task " + id, null, TaskStatus.PENDING, null, orderIndex, null);
+    }
+
+    /**
+     * Поиск и поток событий — необязательные бины, поэтому сервис получает их через {@link ObjectProvider}.
+     */
+    private TaskService newTaskService(TaskSearchService searchService) {
+        return new TaskService(taskRepository, userRepository, userLookupCache, taskListCache, taskStatsService,
+                taskTransferService, taskSyncService, provider(taskStreamService), provider(searchService),
+                taskVersionService, taskWriteBehindService, eventPublisher, new TransactionTemplate(transactionManager));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider(T bean) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        lenient().when(provider.getIfAvailable()).thenReturn(bean);
+        return provider;
+    }
+
+    private static Task foreignTask() {
+        User owner = new User();
+        owner.setId(2L);
+        Task task = new Task("Foreign", null, TaskStatus.PENDING);
+        task.setId(5L);
+        task.setUser(owner);
+        return task;
     }
 }
@@ -0,0 +1,141 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskStats;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskStatsServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 10);
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    private final Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    private TaskStatsService statsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statsService = new TaskStatsService(taskRepository, clock, true, 100, Duration.ofMinutes(5));
+        user = new User();
+        user.setId(1L);
+
+        when(taskRepository.countByStatus(1L)).thenReturn(List.of(
+                statusCount(TaskStatus.PENDING, 2), statusCount(TaskStatus.COMPLETED, 1)));
+        when(taskRepository.countOpenByDueDate(1L, TaskStatus.COMPLETED)).thenReturn(List.of(
+                dueDateCount(TODAY.minusDays(1), 1), dueDateCount(TODAY, 1)));
+    }
+
+    @Test
+    void getStats_ShouldLoadCountersOnce() {
+        TaskStats stats = statsService.getStats(1L);
+        statsService.getStats(1L);
+
+        assertEquals(3, stats.total());
+        assertEquals(2L, stats.byStatus().get(TaskStatus.PENDING));
+        assertEquals(0L, stats.byStatus().get(TaskStatus.IN_PROGRESS));
+        assertEquals(1, stats.overdue());
+        assertEquals(1.0 / 3, stats.completionRate(), 1e-9);
+        verify(taskRepository, times(1)).countByStatus(1L);
+    }
+
+    @Test
+    void getStats_WhenCacheDisabled_ShouldQueryEveryTime() {
+        TaskStatsService uncached = new TaskStatsService(taskRepository, clock, false, 100, Duration.ofMinutes(5));
+
+        uncached.getStats(1L);
+        // Событие другого экземпляра сюда не придет, поэтому счетчики не должны переживать запрос
+        uncached.onTaskEvent(TaskEvent.created(task(TaskStatus.PENDING, null)));
+        TaskStats stats = uncached.getStats(1L);
+
+        assertEquals(3, stats.total());
+        verify(taskRepository, times(2)).countByStatus(1L);
+    }
+
+    @Test
+    void onTaskEvent_ShouldUpdateCountersIncrementally() {
+        statsService.getStats(1L);
+
+        Task created = task(TaskStatus.PENDING, TODAY.minusDays(3));
+        statsService.onTaskEvent(TaskEvent.created(created));
+        // Просроченная задача завершена — перестает считаться просроченной
+        Task completed = task(TaskStatus.COMPLETED, TODAY.minusDays(1));
+        statsService.onTaskEvent(TaskEvent.updated(completed, TaskStatus.PENDING, TODAY.minusDays(1)));
+        statsService.onTaskEvent(TaskEvent.deleted(task(TaskStatus.COMPLETED, null)));
+
+        TaskStats stats = statsService.getStats(1L);
+
+        assertEquals(3, stats.total());
+        assertEquals(2L, stats.byStatus().get(TaskStatus.PENDING));
+        assertEquals(1L, stats.byStatus().get(TaskStatus.COMPLETED));
+        assertEquals(1, stats.overdue());
+        verify(taskRepository, times(1)).countByStatus(1L);
+    }
+
+    @Test
+    void reconcile_ShouldReloadLoadedCounters() {
+        statsService.getStats(1L);
+        statsService.onTaskEvent(TaskEvent.created(task(TaskStatus.IN_PROGRESS, null)));
+
+        statsService.reconcile();
+
+        assertEquals(0L, statsService.getStats(1L).byStatus().get(TaskStatus.IN_PROGRESS));
+        verify(taskRepository, times(2)).countByStatus(1L);
+    }
+
+    private Task task(TaskStatus status, LocalDate dueDate) {
+        Task task = new Task("T", null, status);
+        task.setUser(user);
+        task.setDueDate(dueDate);
+        return task;
+    }
+
+    private static TaskRepository.StatusCount statusCount(TaskStatus status, long total) {
+        return new TaskRepository.StatusCount() {
+            @Override
+            public TaskStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+
+    private static TaskRepository.DueDateCount dueDateCount(LocalDate dueDate, long total) {
+        return new TaskRepository.DueDateCount() {
+            @Override
+            public LocalDate getDueDate() {
+                return dueDate;
+            }
+
+            @Override
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class TaskStreamServiceTest {
+
+    private final ManualExecutor dispatcher = new ManualExecutor();
+
+    private TaskStreamService streamService;
+
+    private MockMvc mockMvc;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        streamService = new TaskStreamService(objectMapper, 3, Duration.ofMinutes(1), Duration.ofSeconds(10),
+                dispatcher);
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(streamService)).build();
+        user = new User();
+        user.setId(1L);
+    }
+
+    @Test
+    void onTaskEvent_ShouldPushEventToUserStream() throws Exception {
+        MvcResult result = openStream();
+
+        streamService.onTaskEvent(TaskEvent.created(task(7L, "Pushed")));
+        dispatcher.runAll();
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:task"));
+        assertTrue(body.contains("\"title\":\"Pushed\""));
+        assertEquals(1, streamService.getConnectionCount());
+    }
+
+    @Test
+    void onTaskEvent_ForOtherUser_ShouldNotReachStream() throws Exception {
+        MvcResult result = openStream();
+        User other = new User();
+        other.setId(2L);
+        Task foreign = task(8L, "Foreign");
+        foreign.setUser(other);
+
+        streamService.onTaskEvent(TaskEvent.created(foreign));
+        dispatcher.runAll();
+
+        assertFalse(result.getResponse().getContentAsString().contains("Foreign"));
+    }
+
+    @Test
+    void onTaskEvent_WhenBufferOverflows_ShouldSendResyncAndDropConnection() throws Exception {
+        MvcResult result = openStream();
+        dispatcher.runAll();
+
+        // Диспетчер не запускается, поэтому события копятся в буфере соединения
+        for (long id = 1; id <= 5; id++) {
+            streamService.onTaskEvent(TaskEvent.created(task(id, "Task " + id)));
+        }
+        dispatcher.runAll();
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:resync"));
+        assertFalse(body.contains("event:task"));
+        assertEquals(0, streamService.getConnectionCount());
+    }
+
+    @Test
+    void heartbeat_ShouldWriteComment() throws Exception {
+        MvcResult result = openStream();
+        dispatcher.runAll();
+        int before = result.getResponse().getContentAsString().length();
+
+        streamService.heartbeat();
+        dispatcher.runAll();
+
+        assertTrue(result.getResponse().getContentAsString().substring(before).contains(":heartbeat"));
+    }
+
+    @Test
+    void heartbeat_WhenWriteStalls_ShouldDropConnectionAndKeepDeliveringToOthers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        StallingFilter stallingFilter = new StallingFilter();
+        TaskStreamService service = new TaskStreamService(new ObjectMapper().registerModule(new JavaTimeModule()),
+                3, Duration.ofMinutes(1), Duration.ZERO, pool);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new StreamController(service))
+                .addFilters(stallingFilter).build();
+        try {
+            mvc.perform(get("/stream").header(StallingFilter.HEADER, "true")).andExpect(request().asyncStarted());
+            MvcResult healthy = mvc.perform(get("/stream")).andExpect(request().asyncStarted()).andReturn();
+
+            // Следующая запись в первое соединение зависает и занимает единственный поток пула
+            stallingFilter.armed = true;
+            service.onTaskEvent(TaskEvent.created(task(6L, "Stalls")));
+            assertTrue(stallingFilter.entered.await(5, TimeUnit.SECONDS));
+
+            service.heartbeat();
+            service.onTaskEvent(TaskEvent.created(task(7L, "Delivered")));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!healthy.getResponse().getContentAsString().contains("Delivered") && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(healthy.getResponse().getContentAsString().contains("Delivered"));
+            assertEquals(1, service.getConnectionCount());
+        } finally {
+            stallingFilter.release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private MvcResult openStream() throws Exception {
+        return mockMvc.perform(get("/stream")).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private Task task(Long id, String title) {
+        Task task = new Task(title, null, TaskStatus.PENDING);
+        task.setId(id);
+        task.setUser(user);
+        return task;
+    }
+
+    @RestController
+    static class StreamController {
+
+        private final TaskStreamService streamService;
+
+        StreamController(TaskStreamService streamService) {
+            this.streamService = streamService;
+        }
+
+        @GetMapping("/stream")
+        SseEmitter stream() {
+            return streamService.open(1L);
+        }
+    }
+
+    /**
+     * Имитирует клиента, который перестал читать: после взвода запись в ответ на запрос
+     * с заголовком {@value #HEADER} блокируется, пока тест не снимет блокировку.
+     */
+    static class StallingFilter extends OncePerRequestFilter {
+
+        static final String HEADER = "X-Stall";
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean armed;
+
+        @Override
+        protected boolean shouldNotFilterAsyncDispatch() {
+            return false;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            if (request.getHeader(HEADER) == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            chain.doFilter(request, new HttpServletResponseWrapper(response) {
+                @Override
+                public ServletOutputStream getOutputStream() throws IOException {
+                    return new StallingOutputStream(super.getOutputStream());
+                }
+            });
+        }
+
+        private class StallingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream target;
+
+            StallingOutputStream(ServletOutputStream target) {
+                this.target = target;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                stall();
+                target.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                stall();
+                target.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                target.flush();
+            }
+
+            @Override
+            public boolean isReady() {
+                return target.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException();
+            }
+
+            private void stall() {
+                if (!armed) {
+                    return;
+                }
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Выполняет задачи только по команде теста.
+     */
+    static class ManualExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.config.SchedulingConfig;
+import com.example.taskmanager.dto.TaskChanges;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.TaskTombstone;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.repository.TaskTombstoneRepository;
+import com.example.taskmanager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ TaskSyncService.class, SchedulingConfig.class })
+class TaskSyncServiceTest {
+
+    @Autowired
+    private TaskSyncService syncService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskTombstoneRepository tombstoneRepository;
+
+    private User user;
+
+    private Task kept;
+
+    private Task removed;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("sync");
+        user.setPassword("secret");
+        user = userRepository.save(user);
+
+        kept = save(new Task("Kept", null, TaskStatus.PENDING));
+        removed = save(new Task("Removed", null, TaskStatus.PENDING));
+    }
+
+    @Test
+    void getChanges_FromZero_ShouldReturnSnapshot() {
+        TaskChanges changes = syncService.getChanges(user.getId(), 0);
+
+        assertTrue(changes.snapshot());
+        assertEquals(2, changes.sequence());
+        assertEquals(2, changes.tasks().size());
+    }
+
+    @Test
+    void getChanges_ShouldReturnOnlyLaterUpdatesAndDeletes() {
+        kept.setTitle("Kept, renamed");
+        kept.setChangeSeq(syncService.nextChangeSeq(user.getId()));
+        taskRepository.save(kept);
+        syncService.recordDeletion(removed, syncService.nextChangeSeq(user.getId()));
+        taskRepository.delete(removed);
+
+        TaskChanges changes = syncService.getChanges(user.getId(), 2);
+
+        assertFalse(changes.snapshot());
+        assertEquals(4, changes.sequence());
+        assertEquals(List.of("Kept, renamed"), changes.tasks().stream().map(TaskView::title).toList());
+        assertEquals(List.of(removed.getId()), changes.deletedIds());
+        assertTrue(syncService.getChanges(user.getId(), 4).tasks().isEmpty());
+    }
+
+    @Test
+    void compact_ShouldForceSnapshotForClientsBehindRemovedTombstones() {
+        syncService.recordDeletion(removed, syncService.nextChangeSeq(user.getId()));
+        taskRepository.delete(removed);
+        TaskTombstone tombstone = tombstoneRepository.findById(removed.getId()).orElseThrow();
+        tombstone.setDeletedAt(tombstone.getDeletedAt().minusDays(31));
+        tombstoneRepository.save(tombstone);
+
+        syncService.compact();
+
+        assertTrue(tombstoneRepository.findAll().isEmpty());
+        TaskChanges stale = syncService.getChanges(user.getId(), 2);
+        assertTrue(stale.snapshot());
+        assertEquals(List.of(kept.getId()), stale.tasks().stream().map(TaskView::id).toList());
+        assertFalse(syncService.getChanges(user.getId(), 3).snapshot());
+    }
+
+    private Task save(Task task) {
+        task.setUser(user);
+        task.setChangeSeq(syncService.nextChangeSeq(user.getId()));
+        return taskRepository.save(task);
+    }
+}
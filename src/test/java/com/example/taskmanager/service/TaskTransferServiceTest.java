@@ -0,0 +1,141 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.config.SchedulingConfig;
+import com.example.taskmanager.dto.BulkImportResult;
+import com.example.taskmanager.dto.TaskFileFormat;
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ TaskTransferService.class, TaskSyncService.class, SchedulingConfig.class })
+@ImportAutoConfiguration({ JacksonAutoConfiguration.class, ValidationAutoConfiguration.class })
+@TestPropertySource(properties = "app.bulk.batch-size=2")
+class TaskTransferServiceTest {
+
+    @Autowired
+    private TaskTransferService transferService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("importer");
+        user.setPassword("secret");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void importJson_ShouldSaveValidRowsAndReportInvalidOnes() throws IOException {
+        String json = """
+                [
+                  {"title": "First", "dueDate": "2024-05-01"},
+                  {"title": ""},
+                  {"title": "Second", "status": "COMPLETED"},
+                  {"title": "Broken", "status": "UNKNOWN"},
+                  {"title": "Third", "description": "d"}
+                ]""";
+
+        BulkImportResult result = transferService.importTasks(user.getId(), stream(json), TaskFileFormat.JSON);
+
+        assertEquals(3, result.imported());
+        assertEquals(2, result.failed());
+        assertEquals(List.of(2, 4), result.errors().stream().map(BulkImportResult.RowError::row).toList());
+        List<TaskView> saved = taskRepository.findViewsByUserId(user.getId());
+        assertEquals(3, saved.size());
+        assertTrue(saved.stream().anyMatch(t -> LocalDate.of(2024, 5, 1).equals(t.dueDate())));
+        assertTrue(saved.stream().filter(t -> t.title().equals("First"))
+                .allMatch(t -> t.status() == TaskStatus.PENDING && t.createdAt() != null));
+    }
+
+    @Test
+    void importCsv_ShouldHandleQuotedValues() throws IOException {
+        String csv = "title,description,status\r\n"
+                + "\"Купить, молоко\",\"Сказал \"\"срочно\"\"\nвторая строка\",IN_PROGRESS\r\n"
+                + ",no title,\r\n"
+                + "Позвонить,,\r\n";
+
+        BulkImportResult result = transferService.importTasks(user.getId(), stream(csv), TaskFileFormat.CSV);
+
+        assertEquals(2, result.imported());
+        assertEquals(1, result.failed());
+        TaskView quoted = taskRepository.findViewsByUserId(user.getId()).stream()
+                .filter(t -> t.title().equals("Купить, молоко")).findFirst().orElseThrow();
+        assertEquals("Сказал \"срочно\"\nвторая строка", quoted.description());
+        assertEquals(TaskStatus.IN_PROGRESS, quoted.status());
+    }
+
+    @Test
+    void export_ShouldRoundTripThroughCsv() throws IOException {
+        transferService.importTasks(user.getId(),
+                stream("[{\"title\": \"A, quoted\"}, {\"title\": \"B\", \"orderIndex\": 5}]"), TaskFileFormat.JSON);
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        transferService.exportTasks(user.getId(), TaskFileFormat.CSV, exported);
+
+        User copy = new User();
+        copy.setUsername("copy");
+        copy.setPassword("secret");
+        copy = userRepository.save(copy);
+        BulkImportResult result = transferService.importTasks(copy.getId(),
+                new ByteArrayInputStream(exported.toByteArray()), TaskFileFormat.CSV);
+
+        assertEquals(2, result.imported());
+        assertEquals(List.of("A, quoted", "B"),
+                taskRepository.findViewsByUserId(copy.getId()).stream().map(TaskView::title).sorted().toList());
+    }
+
+    @Test
+    void export_ShouldRoundTripThroughJson() throws IOException {
+        transferService.importTasks(user.getId(), stream("[{\"title\": \"A\", \"dueDate\": \"2024-05-01\"},"
+                + " {\"title\": \"B\", \"status\": \"COMPLETED\", \"orderIndex\": 5}]"), TaskFileFormat.JSON);
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        transferService.exportTasks(user.getId(), TaskFileFormat.JSON, exported);
+        assertTrue(exported.toString(StandardCharsets.UTF_8).contains("\"id\""));
+
+        // Выгрузка содержит ID задач; повторный импорт создает новые задачи, а не падает на них
+        BulkImportResult result = transferService.importTasks(user.getId(),
+                new ByteArrayInputStream(exported.toByteArray()), TaskFileFormat.JSON);
+
+        assertEquals(2, result.imported());
+        assertEquals(0, result.failed());
+        List<TaskView> tasks = taskRepository.findViewsByUserId(user.getId());
+        assertEquals(4, tasks.size());
+        assertEquals(4, tasks.stream().map(TaskView::id).distinct().count());
+        assertEquals(2, tasks.stream().filter(t -> t.title().equals("B")
+                && t.status() == TaskStatus.COMPLETED && t.orderIndex() == 5).count());
+        assertEquals(2, tasks.stream().filter(t -> LocalDate.of(2024, 5, 1).equals(t.dueDate())).count());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TaskVersionServiceTest {
+
+    private final TaskVersionService versionService = new TaskVersionService(null, false, 100);
+
+    @Test
+    void getVersion_ShouldBeStableUntilTasksChange() {
+        String version = versionService.getVersion(1L);
+
+        assertEquals(version, versionService.getVersion(1L));
+
+        versionService.onTaskEvent(TaskEvent.reordered(1L));
+
+        assertNotEquals(version, versionService.getVersion(1L));
+    }
+
+    @Test
+    void getVersion_ShouldDifferBetweenUsers() {
+        assertNotEquals(versionService.getVersion(1L), versionService.getVersion(2L));
+
+        String other = versionService.getVersion(2L);
+        versionService.onTaskEvent(TaskEvent.imported(1L));
+
+        assertEquals(other, versionService.getVersion(2L));
+    }
+
+    @Test
+    void getVersion_ShouldChangeAfterRestart() {
+        String version = versionService.getVersion(1L);
+
+        TaskVersionService restarted = new TaskVersionService(null, false, 100);
+
+        assertNotEquals(version, restarted.getVersion(1L));
+    }
+
+    @Test
+    void getVersion_WhenShared_ShouldFollowPersistedChangeSeq() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findChangeSeq(1L)).thenReturn(5L, 5L, 6L);
+        when(userRepository.findChangeSeq(2L)).thenReturn(5L);
+        TaskVersionService node = new TaskVersionService(userRepository, true, 100);
+        TaskVersionService otherNode = new TaskVersionService(userRepository, true, 100);
+
+        String version = node.getVersion(1L);
+
+        // Другой экземпляр отдает ту же версию, пока изменение не увеличит change_seq
+        assertEquals(version, otherNode.getVersion(1L));
+        assertNotEquals(version, node.getVersion(1L));
+        assertNotEquals(version, node.getVersion(2L));
+    }
+}
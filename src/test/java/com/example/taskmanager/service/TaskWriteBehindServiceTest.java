@@ -0,0 +1,198 @@
+package com.example.taskmanager.service;
+
+import com.example.taskmanager.dto.TaskView;
+import com.example.taskmanager.event.TaskEvent;
+import com.example.taskmanager.model.Task;
+import com.example.taskmanager.model.TaskStatus;
+import com.example.taskmanager.model.User;
+import com.example.taskmanager.repository.TaskRepository;
+import com.example.taskmanager.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskWriteBehindServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TaskSyncService taskSyncService;
+
+    @Mock
+    private TaskVersionService taskVersionService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path dataDir;
+
+    private Path journal;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        journal = dataDir.resolve("write-behind.journal");
+        user = new User();
+        user.setId(1L);
+    }
+
+    @Test
+    void merge_ShouldShowPendingOrderAndStatusBeforeFlush() {
+        TaskWriteBehindService service = newService();
+
+        service.enqueueOrder(1L, List.of(1L, 2L, 3L));
+        service.enqueueOrder(1L, List.of(3L, 1L, 2L));
+        service.enqueueStatus(1L, 2L, TaskStatus.COMPLETED);
+
+        List<TaskView> merged = service.merge(1L, List.of(view(1L, 0), view(2L, 1024), view(3L, 2048)));
+
+        assertEquals(List.of(3L, 1L, 2L), merged.stream().map(TaskView::id).toList());
+        assertEquals(TaskStatus.COMPLETED, merged.get(2).status());
+        assertEquals(2, service.getPendingCount());
+        verify(taskVersionService, times(3)).touch(1L);
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void flushAll_ShouldWriteOnlyLatestChangesAndEmptyJournal() throws IOException {
+        TaskWriteBehindService service = newService();
+        service.enqueueOrder(1L, List.of(1L, 2L, 3L));
+        service.enqueueOrder(1L, List.of(3L, 1L, 2L));
+        service.enqueueStatus(1L, 2L, TaskStatus.IN_PROGRESS);
+        service.enqueueStatus(1L, 2L, TaskStatus.COMPLETED);
+
+        Task task = task(2L, TaskStatus.PENDING);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(taskSyncService.nextChangeSeq(1L)).thenReturn(7L);
+        when(taskRepository.findAllById(Set.of(2L))).thenReturn(List.of(task));
+
+        service.flushAll();
+
+        verify(taskRepository, times(1)).updateOrderIndexes(user, List.of(3L, 1L, 2L),
+                List.of(0, TaskService.ORDER_GAP, 2 * TaskService.ORDER_GAP), 7L);
+        assertEquals(TaskStatus.COMPLETED, task.getStatus());
+        assertEquals(7L, task.getChangeSeq());
+        verify(eventPublisher).publishEvent(TaskEvent.reordered(1L));
+        verify(eventPublisher).publishEvent(TaskEvent.updated(task, TaskStatus.PENDING, null));
+        assertEquals(0, service.getPendingCount());
+        assertEquals(0, Files.size(journal));
+    }
+
+    @Test
+    void flushAll_ShouldKeepChangesWhenDatabaseWriteFails() {
+        TaskWriteBehindService service = newService();
+        service.enqueueOrder(1L, List.of(2L, 1L));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(taskSyncService.nextChangeSeq(1L)).thenThrow(new IllegalStateException("database is down"));
+
+        service.flushAll();
+
+        assertEquals(1, service.getPendingCount());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void enqueue_ShouldJournalEveryConcurrentChangeBeforeReturning() throws Exception {
+        TaskWriteBehindService service = newService();
+        int threads = 8;
+        int perThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long firstTaskId = (long) t * perThread;
+                writers.add(executor.submit(() -> {
+                    for (long taskId = firstTaskId; taskId < firstTaskId + perThread; taskId++) {
+                        service.enqueueStatus(1L, taskId, TaskStatus.COMPLETED);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Сброс на диск общий для параллельных запросов, но подтверждено только то, что в журнале
+        assertEquals(threads * perThread, service.getPendingCount());
+        assertEquals(threads * perThread, Files.readAllLines(journal).size());
+    }
+
+    @Test
+    void flush_ShouldNotOpenTransactionWithoutPendingChanges() {
+        TaskWriteBehindService service = newService();
+        service.enqueueOrder(1L, List.of(2L, 1L));
+
+        service.flush(2L);
+
+        verifyNoInteractions(transactionManager);
+        assertEquals(1, service.getPendingCount());
+    }
+
+    @Test
+    void newService_ShouldReplayJournalAndSkipTornLastEntry() throws IOException {
+        // Первый экземпляр «падает», не успев записать изменения в базу
+        TaskWriteBehindService crashed = newService();
+        crashed.enqueueStatus(1L, 2L, TaskStatus.COMPLETED);
+        crashed.enqueueOrder(1L, List.of(2L, 1L));
+        Files.writeString(journal, "{\"type\":\"ORDER\",\"userId\":1,\"task",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        TaskWriteBehindService recovered = newService();
+
+        List<TaskView> merged = recovered.merge(1L, List.of(view(1L, 0), view(2L, 1024)));
+        assertEquals(List.of(2L, 1L), merged.stream().map(TaskView::id).toList());
+        assertEquals(TaskStatus.COMPLETED, merged.get(0).status());
+        assertEquals(2, recovered.getPendingCount());
+        assertEquals(2, Files.readAllLines(journal).size());
+    }
+
+    private TaskWriteBehindService newService() {
+        return new TaskWriteBehindService(taskRepository, userRepository, taskSyncService, taskVersionService,
+                eventPublisher, new ObjectMapper(), transactionManager, true, journal.toString(), true, 100);
+    }
+
+    private Task task(Long id, TaskStatus status) {
+        Task task = new Task("Task " + id, null, status);
+        task.setId(id);
+        task.setUser(user);
+        return task;
+    }
+
+    private static TaskView view(Long id, int orderIndex) {
+        return new TaskView(id, "Task " + id, null, TaskStatus.PENDING, null, orderIndex, null);
+    }
+}
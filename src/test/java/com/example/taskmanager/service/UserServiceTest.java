@@ -2,11 +2,15 @@ package com.example.taskmanager.service;
 
 import com.example.taskmanager.model.User;
 import com.example.taskmanager.repository.UserRepository;
+import com.example.taskmanager.security.TieredUserCache;
+import com.example.taskmanager.security.UserPrincipal;
+import com.example.taskmanager.security.VerifiedCredentialCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
@@ -24,6 +28,15 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserLookupCache userLookupCache;
+
+    @Mock
+    private TieredUserCache userCache;
+
+    @Mock
+    private VerifiedCredentialCache verifiedCredentialCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -42,6 +55,21 @@ class UserServiceTest {
         verify(userRepository).save(user);
     }
 
+    @Test
+    void updatePassword_ShouldStoreRehashedPasswordAndInvalidateCache() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("user");
+        user.setPassword("$2a$04$old");
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+
+        UserDetails updated = userService.updatePassword(new UserPrincipal(user), "$2a$10$new");
+
+        assertEquals("$2a$10$new", updated.getPassword());
+        verify(userRepository).save(user);
+        verify(userLookupCache).invalidate("user");
+    }
+
     @Test
     void updateUsername_Success() {
         String oldName = "old";
@@ -56,6 +84,9 @@ class UserServiceTest {
 
         assertEquals(newName, user.getUsername());
         verify(userRepository).save(user);
+        verify(userLookupCache).invalidate(oldName);
+        verify(userCache).removeUserFromCache(oldName);
+        verify(verifiedCredentialCache).invalidate(oldName);
     }
 
     @Test
@@ -66,7 +97,7 @@ class UserServiceTest {
     }
 
     @Test
-    void updateUserPassword_ShouldEncodeAndSave() {
+    void updateUserPassword_ShouldEncodeSaveAndEvictCachedCredentials() {
         String username = "user";
         User user = new User();
         user.setUsername(username);
@@ -78,5 +109,23 @@ class UserServiceTest {
 
         verify(passwordEncoder).encode("newPass");
         verify(userRepository).save(user);
+        verify(userLookupCache).invalidate(username);
+        verify(userCache).removeUserFromCache(username);
+        verify(verifiedCredentialCache).invalidate(username);
+    }
+
+    @Test
+    void loadUserByUsername_ShouldUseCacheAndExposeUserId() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("cached");
+        user.setPassword("hash");
+        when(userLookupCache.get("cached")).thenReturn(user);
+
+        UserPrincipal principal = (UserPrincipal) userService.loadUserByUsername("cached");
+
+        assertEquals(7L, principal.getId());
+        assertEquals("hash", principal.getPassword());
+        verifyNoInteractions(userRepository);
     }
 }